@@ -1,23 +1,99 @@
 package hlml;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
-
 /** Formats a floating point number in a way that can be parsed back without
- * loosing any information. */
+ * loosing any information. Writes the shortest digits that parse back to the
+ * same number in plain notation, without an exponent. Can be used from many
+ * threads at once. */
 public final class FloatingPointFormatter {
-  /** Tool for formatting floating point numbers with maximum accuracy. */
-  private static final DecimalFormat formatter;
+  /** Number of the smallest non-negative integers whose formats are kept. */
+  private static final int cached_integer_count = 1024;
+
+  /** Formats of the smallest non-negative integers, which are the most
+   * common. */
+  private static final String[] cached_integers;
 
   static {
-    formatter = new DecimalFormat("0.#", new DecimalFormatSymbols(Locale.US));
-    formatter.setMaximumFractionDigits(Integer.MAX_VALUE);
+    cached_integers = new String[cached_integer_count];
+    for (int i = 0; i < cached_integer_count; i++) {
+      cached_integers[i] = Integer.toString(i);
+    }
   }
 
   /** Formats a number. */
   public static String format(double value) {
-    return formatter.format(value);
+    boolean is_cached =
+      Double.doubleToRawLongBits(value) >= 0
+        && value < cached_integer_count
+        && value == (int) value;
+    if (is_cached) {
+      return cached_integers[(int) value];
+    }
+    StringBuilder builder = new StringBuilder();
+    format_to(builder, value);
+    return builder.toString();
+  }
+
+  /** Formats a number to the end of the given builder. */
+  public static void format_to(StringBuilder builder, double value) {
+    if (Double.isNaN(value)) {
+      builder.append("NaN");
+      return;
+    }
+    if (value < 0 || value == 0 && 1 / value < 0) {
+      builder.append('-');
+      value = -value;
+    }
+    if (Double.isInfinite(value)) {
+      builder.append('\u221e');
+      return;
+    }
+    if (value < 0x1p53 && value == (long) value) {
+      builder.append((long) value);
+      return;
+    }
+    String shortest = Double.toString(value);
+    int exponent_separator = shortest.indexOf('E');
+    if (exponent_separator == -1) {
+      int end = shortest.length();
+      while (shortest.charAt(end - 1) == '0') { end--; }
+      if (shortest.charAt(end - 1) == '.') { end--; }
+      builder.append(shortest, 0, end);
+      return;
+    }
+    int exponent =
+      Integer.parseInt(shortest, exponent_separator + 1, shortest.length(), 10);
+    int end = exponent_separator;
+    while (shortest.charAt(end - 1) == '0') { end--; }
+    if (shortest.charAt(end - 1) == '.') { end--; }
+    int digit_count = end == 1 ? 1 : end - 1;
+    int point = exponent + 1;
+    if (point <= 0) {
+      builder.append("0.");
+      builder.repeat('0', -point);
+      append_digits(builder, shortest, 0, digit_count);
+      return;
+    }
+    if (point >= digit_count) {
+      append_digits(builder, shortest, 0, digit_count);
+      builder.repeat('0', point - digit_count);
+      return;
+    }
+    append_digits(builder, shortest, 0, point);
+    builder.append('.');
+    append_digits(builder, shortest, point, digit_count);
+  }
+
+  /** Appends the digits in the given range from the significand of a number
+   * in scientific notation, which has a point after its first digit. */
+  private static void append_digits(
+    StringBuilder builder,
+    String significand,
+    int first,
+    int last)
+  {
+    for (int i = first; i < last; i++) {
+      builder.append(significand.charAt(i == 0 ? 0 : i + 1));
+    }
   }
 
   /** Constructs. */
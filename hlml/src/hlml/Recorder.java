@@ -0,0 +1,158 @@
+package hlml;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import hlml.reporter.DiagnosticException;
+import hlml.reporter.Subject;
+
+/** Records the selected representations of the compiled code to an artifact
+ * directory. Representations are written to their files by a background
+ * thread, so the compilation only pays for handing them over. The recorded
+ * files are complete once the recorder is closed. Can be shared by
+ * compilations that run concurrently. */
+public final class Recorder implements AutoCloseable {
+  /** Writes a representation to a file. */
+  @FunctionalInterface
+  public interface Writing {
+    /** Writes the representation. */
+    void write_to(Writer output) throws IOException;
+  }
+
+  /** Returns a recorder that records all the representations to the given
+   * directory, which is created if it does not exist. */
+  public static Recorder create(Path directory) {
+    return create(directory, Set.of(Representation.values()));
+  }
+
+  /** Returns a recorder that records the given representations to the given
+   * directory, which is created if it does not exist. */
+  public static Recorder create(
+    Path directory,
+    Set<Representation> selected)
+  {
+    try {
+      Files.createDirectories(directory);
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(directory)
+        .to_diagnostic("failure", "Could not create the artifact directory!")
+        .to_exception(cause);
+    }
+    return new Recorder(
+      directory,
+      Set.copyOf(selected),
+      Executors
+        .newSingleThreadExecutor(
+          Thread.ofPlatform().name("recorder").daemon().factory()));
+  }
+
+  /** Writes a collection as its elements between brackets separated by
+   * commas, which is the same as its string without creating it. */
+  public static void write_collection(Writer output, Collection<?> collection)
+    throws IOException
+  {
+    output.write('[');
+    boolean is_first = true;
+    for (Object element : collection) {
+      if (!is_first) { output.write(", "); }
+      is_first = false;
+      output.write(String.valueOf(element));
+    }
+    output.write(']');
+  }
+
+  /** Directory the representations are recorded to. */
+  private final Path directory;
+
+  /** Representations that are recorded. */
+  private final Set<Representation> selected;
+
+  /** Background thread that writes the files. */
+  private final ExecutorService writer;
+
+  /** First problem that was met while writing, if any. */
+  private DiagnosticException failure;
+
+  /** Constructor. */
+  private Recorder(
+    Path directory,
+    Set<Representation> selected,
+    ExecutorService writer)
+  {
+    this.directory = directory;
+    this.selected = selected;
+    this.writer = writer;
+  }
+
+  /** Returns whether a representation is recorded. Used for skipping the work
+   * of preparing a representation that is not recorded. */
+  public boolean selects(Representation representation) {
+    return selected.contains(representation);
+  }
+
+  /** Records a representation of a source if it is selected. The file is named
+   * after the source and the given name, which is the representation's name
+   * unless it is recorded to many files. */
+  public void record(
+    Representation representation,
+    String source_name,
+    String representation_name,
+    Writing writing)
+  {
+    if (!selects(representation)) { return; }
+    Path path =
+      directory
+        .resolve(
+          "%s.%s%s"
+            .formatted(source_name, representation_name, Source.extension));
+    writer
+      .execute(() -> write(path, source_name, representation_name, writing));
+  }
+
+  /** Writes a representation to its file. */
+  private void write(
+    Path path,
+    String source_name,
+    String representation_name,
+    Writing writing)
+  {
+    try (BufferedWriter output = Files.newBufferedWriter(path)) {
+      writing.write_to(output);
+    }
+    catch (IOException cause) {
+      fail(
+        Subject
+          .of(path)
+          .to_diagnostic(
+            "failure",
+            "Could not record the %s of source `%s`",
+            representation_name,
+            source_name)
+          .to_exception(cause));
+    }
+  }
+
+  /** Remembers a problem if it is the first one. */
+  private synchronized void fail(DiagnosticException problem) {
+    if (failure == null) { failure = problem; }
+  }
+
+  /** Waits for all the representations to be written. Throws the first problem
+   * that was met while writing them. */
+  @Override
+  public void close() {
+    writer.close();
+    synchronized (this) {
+      if (failure != null) { throw failure; }
+    }
+  }
+}
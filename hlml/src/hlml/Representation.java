@@ -0,0 +1,21 @@
+package hlml;
+
+/** Forms of the compiled code that can be recorded for debugging the
+ * compiler. */
+public enum Representation {
+  /** Text of a source file as it was read. */
+  contents,
+
+  /** Tokens of a source file. */
+  tokens,
+
+  /** Declarations of a source file. */
+  declarations,
+
+  /** Built-in variables and procedures with the processor code they stand
+   * for. */
+  builtins,
+
+  /** Checked sources of a target and their dependencies. */
+  target,
+}
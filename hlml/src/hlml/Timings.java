@@ -0,0 +1,297 @@
+package hlml;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.sun.management.ThreadMXBean;
+
+/** Measures the wall time, the CPU time and the allocated bytes of each phase
+ * of a compilation for each source, and counts what the phases created. A
+ * phase that runs while another one is measured on the same thread is
+ * subtracted from the other one. Phases can be measured concurrently, as long
+ * as they are not on virtual threads, for which the JVM does not measure the
+ * CPU time and the allocations. */
+public final class Timings {
+  /** Measured part of the compilation. */
+  public enum Phase {
+    load, lex, parse, resolve, check, build, emit,
+  }
+
+  /** Measured work. */
+  @FunctionalInterface
+  public interface Work<T, E extends Exception> {
+    /** Does the work. */
+    T run() throws E;
+  }
+
+  /** Measurement of a phase of a source. */
+  private record Timing(
+    String source,
+    Phase phase,
+    long wall_time,
+    long cpu_time,
+    long allocated_bytes,
+    Map<String, Long> counts)
+  {}
+
+  /** Totals of a measurement that is running, which collects the totals of
+   * the measurements nested in it. */
+  private static final class Frame {
+    /** Measurement this one is nested in. */
+    final Frame parent;
+
+    /** Total wall time of the nested measurements. */
+    long nested_wall_time;
+
+    /** Total CPU time of the nested measurements. */
+    long nested_cpu_time;
+
+    /** Total allocated bytes of the nested measurements. */
+    long nested_allocated_bytes;
+
+    /** Constructor. */
+    Frame(Frame parent) { this.parent = parent; }
+  }
+
+  /** Does the work and measures it if there are timings. */
+  public static <T, E extends Exception> T measure(
+    Optional<Timings> timings,
+    Phase phase,
+    String source,
+    Work<T, E> work)
+    throws E
+  {
+    if (timings.isEmpty()) { return work.run(); }
+    return timings.get().measure(phase, source, work);
+  }
+
+  /** Returns timings without any measurements. */
+  public static Timings create() {
+    return new Timings(
+      (ThreadMXBean) ManagementFactory.getThreadMXBean(),
+      new ArrayList<>(),
+      new ThreadLocal<>());
+  }
+
+  /** Measurer of the current thread. */
+  private final ThreadMXBean threads;
+
+  /** Measurements in the order they were completed. */
+  private final List<Timing> timings;
+
+  /** Innermost measurement that is running on each thread. */
+  private final ThreadLocal<Frame> frames;
+
+  /** Constructor. */
+  private Timings(
+    ThreadMXBean threads,
+    List<Timing> timings,
+    ThreadLocal<Frame> frames)
+  {
+    this.threads = threads;
+    this.timings = timings;
+    this.frames = frames;
+  }
+
+  /** Does the work and records how long it took as the given phase of the
+   * given source. Returns the result of the work. */
+  public <T, E extends Exception> T measure(
+    Phase phase,
+    String source,
+    Work<T, E> work)
+    throws E
+  {
+    Frame parent = frames.get();
+    Frame frame = new Frame(parent);
+    frames.set(frame);
+    long wall_time = -System.nanoTime();
+    long cpu_time = -threads.getCurrentThreadCpuTime();
+    long allocated_bytes = -threads.getCurrentThreadAllocatedBytes();
+    try {
+      return work.run();
+    }
+    finally {
+      wall_time += System.nanoTime();
+      cpu_time += threads.getCurrentThreadCpuTime();
+      allocated_bytes += threads.getCurrentThreadAllocatedBytes();
+      frames.set(parent);
+      if (parent != null) {
+        parent.nested_wall_time += wall_time;
+        parent.nested_cpu_time += cpu_time;
+        parent.nested_allocated_bytes += allocated_bytes;
+      }
+      record(
+        new Timing(
+          source,
+          phase,
+          wall_time - frame.nested_wall_time,
+          cpu_time - frame.nested_cpu_time,
+          allocated_bytes - frame.nested_allocated_bytes,
+          new LinkedHashMap<>()));
+    }
+  }
+
+  /** Records a count of something the given phase of the given source
+   * created. The phase must be measured before. */
+  public synchronized void count(
+    Phase phase,
+    String source,
+    String counted,
+    long count)
+  {
+    for (int i = timings.size() - 1; i >= 0; i--) {
+      Timing timing = timings.get(i);
+      if (timing.phase() != phase || !timing.source().equals(source)) {
+        continue;
+      }
+      timing.counts().merge(counted, count, Long::sum);
+      return;
+    }
+  }
+
+  /** Records a measurement. */
+  private synchronized void record(Timing timing) {
+    timings.add(timing);
+  }
+
+  /** Returns the measurements sorted by their source and phase, and the totals
+   * of each phase at the end as the source `total`. */
+  private synchronized List<Timing> sorted() {
+    List<Timing> sorted = new ArrayList<>(timings);
+    sorted
+      .sort(
+        Comparator
+          .comparing(Timing::source)
+          .thenComparing(Timing::phase));
+    Map<Phase, Timing> totals = new EnumMap<>(Phase.class);
+    for (Timing timing : timings) {
+      Timing total = totals.get(timing.phase());
+      if (total == null) {
+        totals
+          .put(
+            timing.phase(),
+            new Timing(
+              "total",
+              timing.phase(),
+              timing.wall_time(),
+              timing.cpu_time(),
+              timing.allocated_bytes(),
+              new LinkedHashMap<>(timing.counts())));
+        continue;
+      }
+      Map<String, Long> counts = new LinkedHashMap<>(total.counts());
+      timing.counts().forEach((k, v) -> counts.merge(k, v, Long::sum));
+      totals
+        .put(
+          timing.phase(),
+          new Timing(
+            "total",
+            timing.phase(),
+            total.wall_time() + timing.wall_time(),
+            total.cpu_time() + timing.cpu_time(),
+            total.allocated_bytes() + timing.allocated_bytes(),
+            counts));
+    }
+    sorted.addAll(totals.values());
+    return sorted;
+  }
+
+  /** Returns the measurements as a table that is read by humans. */
+  public String to_table() {
+    StringBuilder table = new StringBuilder();
+    table
+      .append(
+        "%-24s %-8s %12s %12s %12s  %s%n"
+          .formatted(
+            "source",
+            "phase",
+            "wall ms",
+            "cpu ms",
+            "alloc KiB",
+            "counts"));
+    for (Timing timing : sorted()) {
+      table
+        .append(
+          "%-24s %-8s %12.3f %12.3f %12.1f "
+            .formatted(
+              timing.source(),
+              timing.phase(),
+              timing.wall_time() / 1e6,
+              timing.cpu_time() / 1e6,
+              timing.allocated_bytes() / 1024.0));
+      for (Map.Entry<String, Long> count : timing.counts().entrySet()) {
+        table.append(' ');
+        table.append(count.getKey());
+        table.append('=');
+        table.append(count.getValue());
+      }
+      table.append(System.lineSeparator());
+    }
+    return table.toString();
+  }
+
+  /** Returns the measurements of the given target as a JSON object. */
+  public String to_json(String target) {
+    StringBuilder json = new StringBuilder();
+    json.append("{\"target\": ");
+    append_json_string(json, target);
+    json.append(", \"timings\": [");
+    boolean is_first = true;
+    for (Timing timing : sorted()) {
+      if (!is_first) { json.append(", "); }
+      is_first = false;
+      json.append("{\"source\": ");
+      append_json_string(json, timing.source());
+      json.append(", \"phase\": \"");
+      json.append(timing.phase());
+      json.append("\", \"wall_ns\": ");
+      json.append(timing.wall_time());
+      json.append(", \"cpu_ns\": ");
+      json.append(timing.cpu_time());
+      json.append(", \"allocated_bytes\": ");
+      json.append(timing.allocated_bytes());
+      json.append(", \"counts\": {");
+      boolean is_first_count = true;
+      for (Map.Entry<String, Long> count : timing.counts().entrySet()) {
+        if (!is_first_count) { json.append(", "); }
+        is_first_count = false;
+        append_json_string(json, count.getKey());
+        json.append(": ");
+        json.append(count.getValue());
+      }
+      json.append("}}");
+    }
+    json.append("]}");
+    json.append(System.lineSeparator());
+    return json.toString();
+  }
+
+  /** Appends a text as a JSON string. */
+  private static void append_json_string(StringBuilder json, String text) {
+    json.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char character = text.charAt(i);
+      switch (character) {
+        case '"', '\\' -> {
+          json.append('\\');
+          json.append(character);
+        }
+        default -> {
+          if (character < 0x20) {
+            json.append("\\u%04x".formatted((int) character));
+          }
+          else {
+            json.append(character);
+          }
+        }
+      }
+    }
+    json.append('"');
+  }
+}
@@ -0,0 +1,28 @@
+package hlml.builder;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recording of appending the instructions of a program as text. */
+@Name("hlml.Append")
+@Label("Append")
+@Category({"HLML", "Compiler"})
+@Description("Appending the instructions of a built program as text.")
+final class AppendEvent extends Event {
+  /** Name of the target the program was built from. */
+  @Label("Source")
+  String source;
+
+  /** Size of the appended text in UTF-8. */
+  @Label("Size")
+  @DataAmount
+  long bytes;
+
+  /** Number of appended instructions. */
+  @Label("Instructions")
+  long instructions;
+}
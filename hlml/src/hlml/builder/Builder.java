@@ -1,10 +1,13 @@
 package hlml.builder;
 
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -13,6 +16,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
+import hlml.Timings;
+import hlml.checker.DependencyGraph;
 import hlml.checker.Name;
 import hlml.checker.Semantic;
 import hlml.reporter.Subject;
@@ -20,27 +25,155 @@ import hlml.reporter.Subject;
 /** Transforms a target to a list of instructions that could be run by a
  * processor. */
 public final class Builder {
-  /** Builds a target. */
+  /** Line separator that ends the instructions and measurer of building and
+   * emitting them that are used while building a target. */
+  public record Options(String line_separator, Optional<Timings> timings) {
+    /** Returns the options that end the instructions with the platform's
+     * line separator, without measuring anything. */
+    public static Options create() {
+      return new Options(System.lineSeparator(), Optional.empty());
+    }
+  }
+
+  /** Builds a target to the file at the given path. */
   public static Path build(
     Subject subject,
     Path output_path,
-    Semantic.Target target)
+    Semantic.Target target,
+    Options options)
+  {
+    Program program = build_program(subject, target, options.timings());
+    try (
+      FileChannel output =
+        FileChannel
+          .open(
+            output_path,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE))
+    {
+      emit(program, output, target, options);
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(output_path)
+        .to_diagnostic("failure", "Could not write to the output file!")
+        .to_exception(cause);
+    }
+    return output_path;
+  }
+
+  /** Builds a target without writing it to a file. Returns the instructions
+   * encoded in UTF-8. */
+  public static ByteBuffer build(
+    Subject subject,
+    Semantic.Target target,
+    Options options)
+  {
+    Program program = build_program(subject, target, options.timings());
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try {
+      emit(program, Channels.newChannel(output), target, options);
+    }
+    catch (IOException cause) {
+      throw new IllegalStateException(cause);
+    }
+    return ByteBuffer.wrap(output.toByteArray()).asReadOnlyBuffer();
+  }
+
+  /** Builds the program of a target and measures building it if there are
+   * timings. */
+  private static Program build_program(
+    Subject subject,
+    Semantic.Target target,
+    Optional<Timings> timings)
+  {
+    Builder builder = new Builder(subject, target);
+    Program program =
+      Timings
+        .measure(timings, Timings.Phase.build, target.name(), builder::build);
+    if (timings.isEmpty()) { return program; }
+    timings
+      .get()
+      .count(
+        Timings.Phase.build,
+        target.name(),
+        "instructions",
+        program.size());
+    timings
+      .get()
+      .count(
+        Timings.Phase.build,
+        target.name(),
+        "temporaries",
+        builder.stack.peak());
+    timings
+      .get()
+      .count(Timings.Phase.build, target.name(), "threaded", builder.threaded);
+    timings
+      .get()
+      .count(
+        Timings.Phase.build,
+        target.name(),
+        "propagated",
+        builder.propagated);
+    timings
+      .get()
+      .count(
+        Timings.Phase.build,
+        target.name(),
+        "variables",
+        builder.variables);
+    return program;
+  }
+
+  /** Writes the instructions of the program of a target to a channel and
+   * measures emitting them if there are timings. */
+  private static void emit(
+    Program program,
+    WritableByteChannel output,
+    Semantic.Target target,
+    Options options)
+    throws IOException
+  {
+    Optional<Timings> timings = options.timings();
+    long written =
+      Timings
+        .measure(
+          timings,
+          Timings.Phase.emit,
+          target.name(),
+          () -> write(program, output, options.line_separator()));
+    if (timings.isPresent()) {
+      timings.get().count(Timings.Phase.emit, target.name(), "bytes", written);
+    }
+  }
+
+  /** Writes the instructions of a program to a channel. Returns the number of
+   * bytes that were written. */
+  private static long write(
+    Program program,
+    WritableByteChannel output,
+    String line_separator)
+    throws IOException
   {
-    Builder builder = new Builder(subject, output_path, target);
-    return builder.build();
+    Emitter emitter = Emitter.create(output);
+    program.append_to(emitter, line_separator);
+    emitter.flush();
+    return emitter.written();
   }
 
   /** Subject that is reported when the entrypoint is not found. */
   private final Subject subject;
 
-  /** Path to the output file. */
-  private final Path output_path;
-
   /** Target that is built. */
   private final Semantic.Target target;
 
-  /** Global symbols that are already built. */
-  private Set<Name> built;
+  /** Dependency graph of the target. */
+  private DependencyGraph dependencies;
+
+  /** Whether the nodes of the dependency graph are already built. */
+  private boolean[] built;
 
   /** Name of the the currently built symbol. */
   private Name current;
@@ -51,6 +184,17 @@ public final class Builder {
   /** Temporary register list. */
   private Stack stack;
 
+  /** Number of instructions that were removed by threading the jumps. */
+  private int threaded;
+
+  /** Number of instructions that were removed by propagating the
+   * copies. */
+  private int propagated;
+
+  /** Number of temporaries and locals in the program after allocating
+   * them. */
+  private int variables;
+
   /** Global variables in the program with initial values. */
   private Set<Name> initialized;
 
@@ -58,14 +202,13 @@ public final class Builder {
   private Map<Name, Waypoint> addresses;
 
   /** Constructor. */
-  private Builder(Subject subject, Path output_path, Semantic.Target target) {
+  private Builder(Subject subject, Semantic.Target target) {
     this.subject = subject;
     this.target = target;
-    this.output_path = output_path;
   }
 
   /** Builds the target. */
-  private Path build() {
+  private Program build() {
     Optional<Semantic.Entrypoint> entrypoint =
       target.sources().get(target.name()).entrypoint();
     if (entrypoint.isEmpty()) {
@@ -73,14 +216,13 @@ public final class Builder {
         .to_diagnostic("error", "There is no entrypoint in the target!")
         .to_exception();
     }
-    built = new HashSet<>();
-    program = Program.create();
+    dependencies = target.dependencies();
+    built = new boolean[dependencies.size()];
+    program = Program.create(target.name());
     stack = Stack.create();
     initialized = new HashSet<>();
     addresses = new HashMap<>();
-    for (Name dependency : entrypoint.get().dependencies()) {
-      build_dependency(dependency);
-    }
+    build_dependencies(dependencies.entrypoint());
     for (Name global_variable : initialized) {
       current = global_variable;
       Semantic.GlobalVar var =
@@ -95,7 +237,7 @@ public final class Builder {
       program.instruct(new Instruction.Set(global, value));
     }
     current = new Name(target.name(), "entrypoint");
-    build_statement(new ArrayList<>(), entrypoint.get().body());
+    build_body(entrypoint.get().body());
     program.instruct(new Instruction.End());
     for (Name procedure : addresses.keySet()) {
       current = procedure;
@@ -106,7 +248,7 @@ public final class Builder {
           .globals()
           .get(procedure.identifier());
       program.define(addresses.get(procedure));
-      build_statement(new ArrayList<>(), proc.body());
+      build_body(proc.body());
       Register value = Register.null_();
       Register return_value = Register.local(current, "return$value");
       program.instruct(new Instruction.Set(return_value, value));
@@ -114,31 +256,42 @@ public final class Builder {
       Register program_counter = Register.builtin("counter");
       program.instruct(new Instruction.Set(program_counter, return_location));
     }
-    try (
-      BufferedWriter output =
-        new BufferedWriter(
-          new OutputStreamWriter(Files.newOutputStream(output_path))))
-    {
-      program.append_to(output);
+    threaded = JumpThreader.thread(program);
+    propagated = CopyPropagator.propagate(program);
+    threaded += JumpThreader.thread(program);
+    variables = RegisterAllocator.allocate(program);
+    return program;
+  }
+
+  /** Builds the body of the currently built procedure or entrypoint. */
+  private void build_body(Semantic.Statement body) {
+    ProcedureBuildEvent event = new ProcedureBuildEvent();
+    event.begin();
+    int start = program.size();
+    build_statement(new ArrayList<>(), body);
+    if (event.shouldCommit()) {
+      event.source = current.source();
+      event.procedure = current.identifier();
+      event.instructions = program.size() - start;
+      event.commit();
     }
-    catch (IOException cause) {
-      throw Subject
-        .of(output_path)
-        .to_diagnostic("failure", "Could not write to the output file!")
-        .to_exception(cause);
+  }
+
+  /** Builds the dependencies of a node in the dependency graph. */
+  private void build_dependencies(int node) {
+    for (int i = 0; i < dependencies.dependency_count(node); i++) {
+      build_dependency(dependencies.dependency(node, i));
     }
-    return output_path;
   }
 
   /** Builds a dependency. */
-  private void build_dependency(Name name) {
-    if (built.contains(name)) { return; }
-    built.add(name);
+  private void build_dependency(int node) {
+    if (built[node]) { return; }
+    built[node] = true;
+    Name name = dependencies.name(node);
     Semantic.Source source = target.sources().get(name.source());
     Semantic.Definition definition = source.globals().get(name.identifier());
-    for (Name dependency : definition.dependencies()) {
-      build_dependency(dependency);
-    }
+    build_dependencies(node);
     switch (definition) {
       case Semantic.UserDefinedProcedure d ->
         addresses.put(name, program.waypoint());
@@ -166,11 +319,8 @@ public final class Builder {
         s.inner_statements().forEach(i -> build_statement(loop_waypoints, i));
       case Semantic.If s -> {
         s.variables().forEach(this::build_variable);
-        Register condition = build_expression(s.condition());
         Waypoint after_true_branch = program.waypoint();
-        program
-          .instruct(new Instruction.JumpOnFalse(after_true_branch, condition));
-        stack.pop(condition);
+        build_jump(after_true_branch, s.condition(), false);
         build_statement(loop_waypoints, s.true_branch());
         Waypoint after_false_branch = program.waypoint();
         program.instruct(new Instruction.JumpAlways(after_false_branch));
@@ -187,9 +337,7 @@ public final class Builder {
         program.define(loopBegin);
         build_statement(loop_waypoints, s.interleaved());
         program.define(interleavedEnd);
-        Register condition = build_expression(s.condition());
-        program.instruct(new Instruction.JumpOnFalse(loopEnd, condition));
-        stack.pop(condition);
+        build_jump(loopEnd, s.condition(), false);
         loop_waypoints.add(new LoopWaypoints(loopBegin, loopEnd));
         build_statement(loop_waypoints, s.loop());
         loop_waypoints.remove(loop_waypoints.size() - 1);
@@ -249,6 +397,162 @@ public final class Builder {
     }
   }
 
+  /** Builds a jump to a waypoint that is taken when the condition evaluates
+   * to the given value. Builds the logical operations as chains of jumps that
+   * skip the right operand, comparisons with zero as jumps on the compared
+   * value, and constants as either an unconditional jump or nothing. Fuses a
+   * comparison into the jump, unless it cannot be inverted for a jump that is
+   * taken on false. Other values are true when they are not equal to
+   * zero, except the left operand of a logical or, which is true when it is
+   * equal to true as in its evaluation as a value. */
+  private void build_jump(
+    Waypoint goal,
+    Semantic.Expression condition,
+    boolean is_taken_on_true)
+  {
+    switch (condition) {
+      case Semantic.LogicalAnd e -> {
+        if (!is_taken_on_true) {
+          build_jump(goal, e.left_operand(), false);
+          build_jump(goal, e.right_operand(), false);
+          return;
+        }
+        Waypoint after_evaluation = program.waypoint();
+        build_jump(after_evaluation, e.left_operand(), false);
+        build_jump(goal, e.right_operand(), true);
+        program.define(after_evaluation);
+        return;
+      }
+      case Semantic.LogicalOr e -> {
+        if (is_taken_on_true) {
+          build_jump_on_equal_to_true(goal, e.left_operand());
+          build_jump(goal, e.right_operand(), true);
+          return;
+        }
+        Waypoint after_evaluation = program.waypoint();
+        build_jump_on_equal_to_true(after_evaluation, e.left_operand());
+        build_jump(goal, e.right_operand(), false);
+        program.define(after_evaluation);
+        return;
+      }
+      case Semantic.NotEqualTo e -> {
+        if (is_zero(e.right_operand())) {
+          build_jump(goal, e.left_operand(), is_taken_on_true);
+          return;
+        }
+      }
+      case Semantic.EqualTo e -> {
+        if (is_zero(e.right_operand())) {
+          build_jump(goal, e.left_operand(), !is_taken_on_true);
+          return;
+        }
+      }
+      case Semantic.KnownNumeric e -> {
+        if ((e.numeric() != 0) == is_taken_on_true) {
+          program.instruct(new Instruction.JumpAlways(goal));
+        }
+        return;
+      }
+      default -> {}
+    }
+    Optional<Comparison> comparison = comparison(condition);
+    if (!is_taken_on_true) {
+      comparison = comparison.flatMap(Comparison::inverse);
+    }
+    if (comparison.isPresent()) {
+      Semantic.BinaryOperation operation =
+        (Semantic.BinaryOperation) condition;
+      Register left_operand = build_expression(operation.left_operand());
+      Register right_operand = build_expression(operation.right_operand());
+      stack.pop(right_operand);
+      stack.pop(left_operand);
+      program
+        .instruct(
+          new Instruction.JumpOnComparison(
+            goal,
+            comparison.get(),
+            left_operand,
+            right_operand));
+      return;
+    }
+    Register evaluation = build_expression(condition);
+    if (is_taken_on_true) {
+      program
+        .instruct(
+          new Instruction.JumpOnComparison(
+            goal,
+            Comparison.not_equal,
+            evaluation,
+            Register.number(0)));
+    }
+    else {
+      program.instruct(new Instruction.JumpOnFalse(goal, evaluation));
+    }
+    stack.pop(evaluation);
+  }
+
+  /** Builds a jump to a waypoint that is taken when the left operand of a
+   * logical or is equal to true, which is when its evaluation as a value
+   * skips the right operand. Comparisons and logical operations evaluate to
+   * zero or one, so they are built as any other condition. Other values are
+   * compared to true by the processor, unless they are the constants zero or
+   * one. */
+  private void build_jump_on_equal_to_true(
+    Waypoint goal,
+    Semantic.Expression condition)
+  {
+    if (condition instanceof Semantic.LogicalAnd
+      || condition instanceof Semantic.LogicalOr
+      || comparison(condition).isPresent())
+    {
+      build_jump(goal, condition, true);
+      return;
+    }
+    if (condition instanceof Semantic.KnownNumeric known) {
+      if (known.numeric() == 1) {
+        program.instruct(new Instruction.JumpAlways(goal));
+        return;
+      }
+      if (known.numeric() == 0) { return; }
+    }
+    Register evaluation = build_expression(condition);
+    program.instruct(new Instruction.JumpOnTrue(goal, evaluation));
+    stack.pop(evaluation);
+  }
+
+  /** Returns whether a register hosts a variable, which an in-out parameter
+   * is written back to. */
+  private static boolean is_variable(Register register) {
+    return register instanceof Register.Global
+      || register instanceof Register.Local
+      || register instanceof Register.Builtin;
+  }
+
+  /** Returns whether an expression is the constant zero. */
+  private static boolean is_zero(Semantic.Expression expression) {
+    return expression instanceof Semantic.KnownNumeric known
+      && known.numeric() == 0;
+  }
+
+  /** Returns the comparison an expression does if it is one. */
+  private static Optional<Comparison> comparison(
+    Semantic.Expression expression)
+  {
+    return switch (expression) {
+      case Semantic.EqualTo e -> Optional.of(Comparison.equal);
+      case Semantic.NotEqualTo e -> Optional.of(Comparison.not_equal);
+      case Semantic.StrictlyEqualTo e ->
+        Optional.of(Comparison.strictly_equal_to);
+      case Semantic.LessThan e -> Optional.of(Comparison.less_than);
+      case Semantic.LessThanOrEqualTo e ->
+        Optional.of(Comparison.less_than_or_equal_to);
+      case Semantic.GreaterThan e -> Optional.of(Comparison.greater_than);
+      case Semantic.GreaterThanOrEqualTo e ->
+        Optional.of(Comparison.greater_than_or_equal_to);
+      default -> Optional.empty();
+    };
+  }
+
   /** Builds a local variable. */
   private void build_variable(Semantic.LocalVar l) {
     Register variable = Register.local(current, l.identifier());
@@ -415,7 +719,7 @@ public final class Builder {
             for (int i = 0; i < e.arguments().size(); i++) {
               if (!p.parameters().get(i).in_out()) { continue; }
               Register argument = arguments.get(i);
-              if (!argument.is_volatile()) { continue; }
+              if (!is_variable(argument)) { continue; }
               Register parameter = Register.parameter(p, i);
               program.instruct(new Instruction.Set(argument, parameter));
             }
@@ -0,0 +1,55 @@
+package hlml.builder;
+
+import java.util.Optional;
+
+/** Condition of a jump that compares two values. */
+enum Comparison {
+  /** Whether the values are the same after implicit conversions. */
+  equal("equal"),
+
+  /** Whether the values are not the same after implicit conversions. */
+  not_equal("notEqual"),
+
+  /** Whether the left value is less than the right one. */
+  less_than("lessThan"),
+
+  /** Whether the left value is less than or equal to the right one. */
+  less_than_or_equal_to("lessThanEq"),
+
+  /** Whether the left value is greater than the right one. */
+  greater_than("greaterThan"),
+
+  /** Whether the left value is greater than or equal to the right one. */
+  greater_than_or_equal_to("greaterThanEq"),
+
+  /** Whether the values are the same without any implicit conversions. */
+  strictly_equal_to("strictEqual");
+
+  /** Identifier of the comparison in the instructions. */
+  private final String condition_code;
+
+  /** Constructor. */
+  Comparison(String condition_code) {
+    this.condition_code = condition_code;
+  }
+
+  /** Returns the identifier of the comparison in the instructions. */
+  String condition_code() {
+    return condition_code;
+  }
+
+  /** Returns the comparison that is true exactly when this one is false. There
+   * is none for the strict equality, as the processor does not have a strict
+   * inequality. */
+  Optional<Comparison> inverse() {
+    return switch (this) {
+      case equal -> Optional.of(not_equal);
+      case not_equal -> Optional.of(equal);
+      case less_than -> Optional.of(greater_than_or_equal_to);
+      case less_than_or_equal_to -> Optional.of(greater_than);
+      case greater_than -> Optional.of(less_than_or_equal_to);
+      case greater_than_or_equal_to -> Optional.of(less_than);
+      case strictly_equal_to -> Optional.empty();
+    };
+  }
+}
@@ -0,0 +1,264 @@
+package hlml.builder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/** Forwards the copies into the instructions that read them and removes the
+ * copies and operations whose results are never read. A copy of a register to
+ * a temporary or a local is forwarded to the instructions it reaches on every
+ * path, as long as neither side is written on the way. Volatile registers,
+ * which are the globals and the built-ins, are not forwarded, as something
+ * other than the program might change them. Only the temporaries and the
+ * locals are removed when they are not read, so the volatile registers are
+ * always written. Arguments of the directly compiled instructions are not
+ * forwarded to, as they might be written by the instruction. Copies whose
+ * sides are not read or written by a called procedure skip over the calls to
+ * it, and the other copies do not survive the calls. Does nothing if the
+ * program sets the program counter by itself other than returning from a
+ * procedure. */
+final class CopyPropagator {
+  /** Propagates the copies in a program. Returns the number of instructions
+   * that were removed. */
+  static int propagate(Program program) {
+    CopyPropagator propagator = new CopyPropagator(program);
+    return propagator.propagate();
+  }
+
+  /** Program whose copies are propagated. */
+  private final Program program;
+
+  /** Constructor. */
+  private CopyPropagator(Program program) {
+    this.program = program;
+  }
+
+  /** Propagates the copies. */
+  private int propagate() {
+    Optional<FlowGraph> graph = FlowGraph.of(program);
+    if (graph.isEmpty()) { return 0; }
+    int initial_size = program.size();
+    forward_copies(graph.get());
+    graph = FlowGraph.of(program);
+    remove_unread(Liveness.analyze(program, graph.get()));
+    return initial_size - program.size();
+  }
+
+  /** Replaces the reads of the variables with the registers they are copies
+   * of. */
+  private void forward_copies(FlowGraph graph) {
+    List<Instruction.Set> copies = new ArrayList<>();
+    Map<Instruction.Set, Integer> indices = new HashMap<>();
+    Map<Register, BitSet> targeted = new HashMap<>();
+    Map<Register, BitSet> sourced = new HashMap<>();
+    for (int i = 0; i < program.size(); i++) {
+      if (!(program.instruction(i) instanceof Instruction.Set copy)
+        || !is_forwarded(copy)
+        || indices.containsKey(copy))
+      {
+        continue;
+      }
+      targeted
+        .computeIfAbsent(copy.target(), r -> new BitSet())
+        .set(copies.size());
+      sourced
+        .computeIfAbsent(copy.source(), r -> new BitSet())
+        .set(copies.size());
+      indices.put(copy, copies.size());
+      copies.add(copy);
+    }
+    if (copies.isEmpty()) { return; }
+    BitSet[] available =
+      find_available(graph, copies, indices, targeted, sourced);
+    for (int i = 0; i < program.size(); i++) {
+      Instruction instruction = program.instruction(i);
+      if (instruction instanceof Instruction.DirectlyCompiled
+        || instruction instanceof Instruction.DirectlyCompiledWithDummy)
+      {
+        continue;
+      }
+      BitSet reaching = available[i];
+      Instruction forwarded =
+        instruction
+          .rename(
+            UnaryOperator.identity(),
+            r -> forward(copies, targeted, reaching, r));
+      if (!forwarded.equals(instruction)) { program.replace(i, forwarded); }
+    }
+  }
+
+  /** Returns the indices of the copies that are available before each
+   * instruction, which are the ones that reach it on every path without any
+   * of their sides being written. Visits the instructions in order, and
+   * again when the copies available after an instruction they follow
+   * change. Instructions that are not reached yet do not limit the copies
+   * available after them, and nothing is available before the instructions
+   * that cannot be reached. */
+  private BitSet[] find_available(
+    FlowGraph graph,
+    List<Instruction.Set> copies,
+    Map<Instruction.Set, Integer> indices,
+    Map<Register, BitSet> targeted,
+    Map<Register, BitSet> sourced)
+  {
+    int size = program.size();
+    BitSet[] killed = new BitSet[size];
+    int[] generated = new int[size];
+    for (int i = 0; i < size; i++) {
+      Instruction instruction = program.instruction(i);
+      killed[i] = new BitSet();
+      List<Register> written = new ArrayList<>();
+      instruction.defined().ifPresent(written::add);
+      if (instruction instanceof Instruction.DirectlyCompiled
+        || instruction instanceof Instruction.DirectlyCompiledWithDummy)
+      {
+        written.addAll(instruction.registers());
+      }
+      for (Register register : written) {
+        BitSet sourcing = sourced.get(register);
+        if (sourcing != null) { killed[i].or(sourcing); }
+        BitSet targeting = targeted.get(register);
+        if (targeting != null) { killed[i].or(targeting); }
+      }
+      generated[i] = -1;
+      if (instruction instanceof Instruction.Set copy) {
+        generated[i] = indices.getOrDefault(copy, -1);
+      }
+    }
+    BitSet[] procedure_copies = new BitSet[graph.procedure_count()];
+    for (int i = 0; i < graph.procedure_count(); i++) {
+      BitSet procedure = new BitSet();
+      for (Register register : graph.registers(i)) {
+        BitSet targeting = targeted.get(register);
+        if (targeting != null) { procedure.or(targeting); }
+        BitSet sourcing = sourced.get(register);
+        if (sourcing != null) { procedure.or(sourcing); }
+      }
+      procedure_copies[i] = procedure;
+    }
+    BitSet[] available_in = new BitSet[size];
+    BitSet[] available_out = new BitSet[size];
+    for (int i = 0; i < size; i++) { available_in[i] = new BitSet(); }
+    BitSet in = new BitSet();
+    BitSet returning = new BitSet();
+    int[] order = graph.order();
+    int[] positions = new int[size];
+    for (int i = 0; i < size; i++) { positions[order[i]] = i; }
+    BitSet pending = new BitSet();
+    if (size != 0) { pending.set(positions[0]); }
+    int position = 0;
+    while (!pending.isEmpty()) {
+      position = pending.nextSetBit(position);
+      if (position == -1) { position = pending.nextSetBit(0); }
+      pending.clear(position);
+      int index = order[position];
+      boolean is_reached = index == 0;
+      in.clear();
+      for (int predecessor : graph.predecessors(index)) {
+        if (index == 0 || available_out[predecessor] == null) { continue; }
+        returning.clear();
+        returning.or(available_out[predecessor]);
+        int procedure = graph.returned(predecessor);
+        if (procedure != -1 && graph.called(index - 1) == procedure) {
+          if (available_out[index - 1] == null) { continue; }
+          returning.clear();
+          returning.or(available_out[index - 1]);
+          returning.andNot(procedure_copies[procedure]);
+        }
+        if (is_reached) { in.and(returning); }
+        else { in.or(returning); }
+        is_reached = true;
+      }
+      if (!is_reached) { continue; }
+      available_in[index].clear();
+      available_in[index].or(in);
+      in.andNot(killed[index]);
+      if (generated[index] != -1) { in.set(generated[index]); }
+      if (available_out[index] != null && in.equals(available_out[index])) {
+        continue;
+      }
+      available_out[index] = (BitSet) in.clone();
+      for (int successor : graph.successors(index)) {
+        pending.set(positions[successor]);
+      }
+      if (graph.called(index) != -1) { pending.set(positions[index + 1]); }
+    }
+    return available_in;
+  }
+
+  /** Removes the copies and the operations whose targets are not read, and
+   * the copies of a variable to itself. */
+  private void remove_unread(Liveness liveness) {
+    boolean[] removed = new boolean[program.size()];
+    boolean is_changed = false;
+    for (int i = 0; i < program.size(); i++) {
+      boolean is_removed =
+        is_unread(liveness, i)
+          || program.instruction(i) instanceof Instruction.Set copy
+            && Liveness.is_tracked(copy.target())
+            && copy.target().equals(copy.source());
+      if (!is_removed) { continue; }
+      removed[i] = true;
+      is_changed = true;
+    }
+    if (is_changed) { program.remove(removed); }
+  }
+
+  /** Returns whether the instruction at an index is a copy or an operation
+   * whose target is not read. */
+  private boolean is_unread(Liveness liveness, int index) {
+    Instruction instruction = program.instruction(index);
+    if (!Liveness.is_store(instruction)) { return false; }
+    int target = liveness.index(instruction.defined().get());
+    return !liveness.live_out(index).get(target);
+  }
+
+  /** Returns whether a copy can be forwarded to the reads of its target. */
+  private static boolean is_forwarded(Instruction.Set copy) {
+    Register source = copy.source();
+    return Liveness.is_tracked(copy.target())
+      && !copy.target().equals(source)
+      && !(source instanceof Register.Instruction)
+      && !source.is_volatile();
+  }
+
+  /** Returns the register a read of a register is forwarded to, which is the
+   * source of the available copy to it if there is one. Follows the copies
+   * of copies, as all of them hold the same value. */
+  private static Register forward(
+    List<Instruction.Set> copies,
+    Map<Register, BitSet> targeted,
+    BitSet available,
+    Register register)
+  {
+    for (int step = 0; step < copies.size(); step++) {
+      Optional<Register> source =
+        source(copies, targeted, available, register);
+      if (source.isEmpty()) { break; }
+      register = source.get();
+    }
+    return register;
+  }
+
+  /** Returns the source of the available copy to a register if there is
+   * one. */
+  private static Optional<Register> source(
+    List<Instruction.Set> copies,
+    Map<Register, BitSet> targeted,
+    BitSet available,
+    Register register)
+  {
+    BitSet targeting = targeted.get(register);
+    if (targeting == null) { return Optional.empty(); }
+    for (int i = targeting.nextSetBit(0); i >= 0;
+      i = targeting.nextSetBit(i + 1))
+    {
+      if (available.get(i)) { return Optional.of(copies.get(i).source()); }
+    }
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,169 @@
+package hlml.builder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import hlml.FloatingPointFormatter;
+
+/** Writes text to a channel in UTF-8 through a buffer that is reused. ASCII
+ * characters and integers are put into the buffer as bytes directly, without
+ * creating any objects. Each thread has one buffer that is reused by all the
+ * emitters it creates, so a thread must flush an emitter before creating
+ * another one. */
+final class Emitter {
+  /** Buffer of each thread that emitted before. */
+  private static final ThreadLocal<ByteBuffer> buffers =
+    ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(1 << 16));
+
+  /** Returns an emitter that writes to the given channel. */
+  static Emitter create(WritableByteChannel channel) {
+    ByteBuffer buffer = buffers.get();
+    buffer.clear();
+    return new Emitter(channel, buffer);
+  }
+
+  /** Channel that the buffer is flushed to. */
+  private final WritableByteChannel channel;
+
+  /** Bytes that are not written to the channel yet. */
+  private final ByteBuffer buffer;
+
+  /** Digits of the integer that is appended, from the last one. */
+  private final byte[] digits;
+
+  /** Number of bytes that were written to the channel. */
+  private long written;
+
+  /** Text of the floating point number that is appended. */
+  private final StringBuilder number_text;
+
+  /** Constructor. */
+  private Emitter(WritableByteChannel channel, ByteBuffer buffer) {
+    this.channel = channel;
+    this.buffer = buffer;
+    digits = new byte[10];
+    number_text = new StringBuilder();
+  }
+
+  /** Appends a character. */
+  void append(char character) throws IOException {
+    if (character < 0x80) {
+      reserve(1);
+      buffer.put((byte) character);
+      return;
+    }
+    if (Character.isSurrogate(character)) {
+      append_code_point('?');
+      return;
+    }
+    append_code_point(character);
+  }
+
+  /** Appends the characters in a text. */
+  void append(CharSequence text) throws IOException {
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      char character = text.charAt(i);
+      if (character < 0x80) {
+        reserve(1);
+        buffer.put((byte) character);
+        continue;
+      }
+      if (Character.isHighSurrogate(character)
+        && i + 1 < length
+        && Character.isLowSurrogate(text.charAt(i + 1)))
+      {
+        append_code_point(Character.toCodePoint(character, text.charAt(i + 1)));
+        i++;
+        continue;
+      }
+      append(character);
+    }
+  }
+
+  /** Appends the decimal digits of an integer. */
+  void append(int number) throws IOException {
+    if (number < 0) {
+      append('-');
+      if (number == Integer.MIN_VALUE) {
+        append("2147483648");
+        return;
+      }
+      number = -number;
+    }
+    int count = 0;
+    do {
+      digits[count] = (byte) ('0' + number % 10);
+      number /= 10;
+      count++;
+    }
+    while (number != 0);
+    reserve(count);
+    while (count != 0) {
+      count--;
+      buffer.put(digits[count]);
+    }
+  }
+
+  /** Appends a floating point number such that it parses back to the same
+   * number. Integers are appended as digits directly. */
+  void append(double number) throws IOException {
+    boolean is_negative_zero = number == 0 && 1 / number < 0;
+    if (number == (int) number && !is_negative_zero) {
+      append((int) number);
+      return;
+    }
+    number_text.setLength(0);
+    FloatingPointFormatter.format_to(number_text, number);
+    append(number_text);
+  }
+
+  /** Writes all the appended bytes to the channel. */
+  void flush() throws IOException {
+    buffer.flip();
+    written += buffer.remaining();
+    while (buffer.hasRemaining()) { channel.write(buffer); }
+    buffer.clear();
+  }
+
+  /** Returns the number of bytes that were written to the channel. */
+  long written() {
+    return written;
+  }
+
+  /** Returns the number of bytes that were appended, including the ones that
+   * are not written to the channel yet. */
+  long appended() {
+    return written + buffer.position();
+  }
+
+  /** Appends a code point that is not ASCII in UTF-8. */
+  private void append_code_point(int code_point) throws IOException {
+    reserve(4);
+    if (code_point < 0x80) {
+      buffer.put((byte) code_point);
+    }
+    else if (code_point < 0x800) {
+      buffer.put((byte) (0xc0 | code_point >> 6));
+      buffer.put((byte) (0x80 | code_point & 0x3f));
+    }
+    else if (code_point < 0x10000) {
+      buffer.put((byte) (0xe0 | code_point >> 12));
+      buffer.put((byte) (0x80 | code_point >> 6 & 0x3f));
+      buffer.put((byte) (0x80 | code_point & 0x3f));
+    }
+    else {
+      buffer.put((byte) (0xf0 | code_point >> 18));
+      buffer.put((byte) (0x80 | code_point >> 12 & 0x3f));
+      buffer.put((byte) (0x80 | code_point >> 6 & 0x3f));
+      buffer.put((byte) (0x80 | code_point & 0x3f));
+    }
+  }
+
+  /** Flushes the buffer if there is no space for the given number of
+   * bytes. */
+  private void reserve(int byte_count) throws IOException {
+    if (buffer.remaining() < byte_count) { flush(); }
+  }
+}
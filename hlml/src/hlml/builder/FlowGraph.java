@@ -0,0 +1,418 @@
+package hlml.builder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/** Instructions that the processor can run right after each instruction of a
+ * program. Ending and running out of instructions lead to the first
+ * instruction. Returning from a procedure leads to the return addresses that
+ * are stored to the procedure's return location, or to all the return
+ * addresses if something else is stored there. Also finds the calls, which
+ * are the unconditional jumps right before the return addresses, and the
+ * registers the called procedures and the procedures they call might read
+ * or write. Analyses can skip over a call for the other registers instead of
+ * going through the procedure, which would mix the callers of the procedure
+ * together. */
+final class FlowGraph {
+  /** Returns the flow graph of a program, or nothing if the program sets the
+   * program counter by itself other than returning from a procedure. */
+  static Optional<FlowGraph> of(Program program) {
+    if (program.sets_counter_directly()) { return Optional.empty(); }
+    FlowGraph graph =
+      new FlowGraph(program, new ArrayList<>(), new ArrayList<>());
+    graph.connect();
+    return Optional.of(graph);
+  }
+
+  /** Program whose instructions are connected. */
+  private final Program program;
+
+  /** Indices of the instructions that can run after each instruction. */
+  private final List<int[]> successors;
+
+  /** Indices of the instructions that can run before each instruction. */
+  private int[][] predecessors;
+
+  /** Registers that each called procedure might read or write. */
+  private final List<Set<Register>> procedures;
+
+  /** Index of the procedure each instruction calls, or -1. */
+  private int[] called;
+
+  /** Index of the procedure each instruction returns from, or -1. */
+  private int[] returned;
+
+  /** Constructor. */
+  private FlowGraph(
+    Program program,
+    List<int[]> successors,
+    List<Set<Register>> procedures)
+  {
+    this.program = program;
+    this.successors = successors;
+    this.procedures = procedures;
+  }
+
+  /** Returns the number of instructions in the graph. */
+  int size() {
+    return successors.size();
+  }
+
+  /** Returns the indices of the instructions that can run after the
+   * instruction at an index. */
+  int[] successors(int index) {
+    return successors.get(index);
+  }
+
+  /** Returns the indices of the instructions that can run before the
+   * instruction at an index. */
+  int[] predecessors(int index) {
+    return predecessors[index];
+  }
+
+  /** Returns the number of the called procedures. */
+  int procedure_count() {
+    return procedures.size();
+  }
+
+  /** Returns the registers that a procedure or the procedures it calls might
+   * read or write. */
+  Set<Register> registers(int procedure) {
+    return procedures.get(procedure);
+  }
+
+  /** Returns the index of the procedure that the instruction at an index
+   * calls, or -1 if it is not a call. The procedure returns to the next
+   * instruction. */
+  int called(int index) {
+    return called[index];
+  }
+
+  /** Returns the index of the procedure that the instruction at an index
+   * returns from, or -1 if it is not a return from a called procedure. */
+  int returned(int index) {
+    return returned[index];
+  }
+
+  /** Returns the indices of the instructions such that each comes before the
+   * ones it leads to, except when they form a loop. Goes over the calls to
+   * the instruction after them before the called procedure, so the calls to a
+   * procedure come before it. Puts the instructions that are only reached by
+   * returning from a procedure at the end. */
+  int[] order() {
+    int[] order = new int[program.size()];
+    int position = program.size();
+    boolean[] reached = new boolean[program.size()];
+    Deque<int[]> path = new ArrayDeque<>();
+    if (program.size() != 0) {
+      reached[0] = true;
+      path.push(new int[] { 0, 0 });
+    }
+    while (!path.isEmpty()) {
+      int[] visit = path.peek();
+      int[] next = order_successors(visit[0]);
+      if (visit[1] == next.length) {
+        path.pop();
+        order[--position] = visit[0];
+        continue;
+      }
+      int successor = next[visit[1]++];
+      if (reached[successor]) { continue; }
+      reached[successor] = true;
+      path.push(new int[] { successor, 0 });
+    }
+    int[] ordered = new int[program.size()];
+    int count = 0;
+    for (int i = position; i < program.size(); i++) {
+      ordered[count++] = order[i];
+    }
+    for (int i = 0; i < program.size(); i++) {
+      if (!reached[i]) { ordered[count++] = i; }
+    }
+    return ordered;
+  }
+
+  /** Returns the instructions that are visited after the instruction at an
+   * index while ordering the instructions. */
+  private int[] order_successors(int index) {
+    if (returned[index] != -1) { return new int[0]; }
+    if (called[index] != -1) {
+      return new int[] { successors.get(index)[0], index + 1 };
+    }
+    return successors.get(index);
+  }
+
+  /** Finds the successors and the predecessors of the instructions. */
+  private void connect() {
+    Map<Register, Set<Integer>> returns = find_returns();
+    Set<Integer> all_returns = new HashSet<>();
+    for (int i = 0; i < program.size(); i++) {
+      for (Register register : program.instruction(i).registers()) {
+        if (register instanceof Register.Instruction address) {
+          all_returns.add(program.resolve(address.waypoint()));
+        }
+      }
+    }
+    Map<Register, int[]> returned_to = new HashMap<>();
+    for (int i = 0; i < program.size(); i++) {
+      Instruction instruction = program.instruction(i);
+      if (Program.is_return(instruction)) {
+        Register location = ((Instruction.Set) instruction).source();
+        if (!returned_to.containsKey(location)) {
+          int[] addresses =
+            returns
+              .getOrDefault(location, all_returns)
+              .stream()
+              .mapToInt(Integer::intValue)
+              .toArray();
+          returned_to.put(location, indices(addresses));
+        }
+        successors.add(returned_to.get(location));
+        continue;
+      }
+      int[] next = switch (instruction) {
+        case Instruction.JumpAlways j -> indices(program.resolve(j.goal()));
+        case Instruction.Jump j -> indices(program.resolve(j.goal()), i + 1);
+        case Instruction.End j -> indices(0);
+        default -> indices(i + 1);
+      };
+      successors.add(next);
+    }
+    int[] counts = new int[program.size()];
+    for (int[] next : successors) {
+      for (int successor : next) { counts[successor]++; }
+    }
+    predecessors = new int[program.size()][];
+    for (int i = 0; i < program.size(); i++) {
+      predecessors[i] = new int[counts[i]];
+    }
+    Arrays.fill(counts, 0);
+    for (int i = 0; i < program.size(); i++) {
+      for (int successor : successors.get(i)) {
+        predecessors[successor][counts[successor]++] = i;
+      }
+    }
+    find_calls(returns);
+  }
+
+  /** Returns the indices of the instructions that the processor runs when
+   * it goes to some addresses, which are the addresses themselves except
+   * the ones after the last instruction that lead to the first one. Sorted
+   * without duplicates. */
+  private int[] indices(int... addresses) {
+    int[] indices = new int[addresses.length];
+    for (int i = 0; i < addresses.length; i++) {
+      indices[i] = addresses[i] >= program.size() ? 0 : addresses[i];
+    }
+    Arrays.sort(indices);
+    int count = 0;
+    for (int index : indices) {
+      if (count == 0 || indices[count - 1] != index) {
+        indices[count++] = index;
+      }
+    }
+    return count == indices.length ? indices : Arrays.copyOf(indices, count);
+  }
+
+  /** Finds the calls and the returns of the procedures whose return
+   * addresses are all right after an unconditional jump and are not stored
+   * to any other return location. Finds none if a procedure might return to
+   * an unknown address, as then its returns do not match its calls. */
+  private void find_calls(Map<Register, Set<Integer>> returns) {
+    called = new int[program.size()];
+    returned = new int[program.size()];
+    Arrays.fill(called, -1);
+    Arrays.fill(returned, -1);
+    Map<Integer, Integer> stored = new HashMap<>();
+    for (Set<Integer> addresses : returns.values()) {
+      for (int address : addresses) { stored.merge(address, 1, Integer::sum); }
+    }
+    for (int i = 0; i < program.size(); i++) {
+      if (!Program.is_return(program.instruction(i))) { continue; }
+      Register location = ((Instruction.Set) program.instruction(i)).source();
+      if (!returns.containsKey(location)) { return; }
+    }
+    Map<Register, Integer> locations = new HashMap<>();
+    for (int i = 0; i < program.size(); i++) {
+      if (!Program.is_return(program.instruction(i))) { continue; }
+      Register location = ((Instruction.Set) program.instruction(i)).source();
+      if (locations.containsKey(location)) { continue; }
+      boolean is_called = true;
+      for (int address : returns.get(location)) {
+        is_called &=
+          address > 0
+            && address < program.size()
+            && stored.get(address) == 1
+            && program.instruction(address - 1)
+              instanceof Instruction.JumpAlways;
+      }
+      if (!is_called) {
+        locations.put(location, -1);
+        continue;
+      }
+      for (int address : returns.get(location)) {
+        called[address - 1] = procedures.size();
+      }
+      locations.put(location, procedures.size());
+      procedures.add(new HashSet<>());
+    }
+    for (int i = 0; i < program.size(); i++) {
+      if (!Program.is_return(program.instruction(i))) { continue; }
+      Register location = ((Instruction.Set) program.instruction(i)).source();
+      returned[i] = locations.get(location);
+    }
+    List<int[]> bodies;
+    do { bodies = find_bodies(); }
+    while (remove_entered(bodies));
+    find_registers(bodies);
+  }
+
+  /** Returns the indices of the instructions each procedure runs until it
+   * returns, skipping over the calls it makes. */
+  private List<int[]> find_bodies() {
+    List<List<Integer>> goals = new ArrayList<>();
+    for (int i = 0; i < procedures.size(); i++) {
+      goals.add(new ArrayList<>());
+    }
+    for (int i = 0; i < program.size(); i++) {
+      if (called[i] == -1) { continue; }
+      goals.get(called[i]).add(successors.get(i)[0]);
+    }
+    List<int[]> bodies = new ArrayList<>();
+    int[] reached = new int[program.size()];
+    Arrays.fill(reached, -1);
+    int[] body = new int[program.size()];
+    for (int procedure = 0; procedure < procedures.size(); procedure++) {
+      int count = 0;
+      for (int goal : goals.get(procedure)) {
+        if (reached[goal] == procedure) { continue; }
+        reached[goal] = procedure;
+        body[count++] = goal;
+      }
+      for (int visited = 0; visited < count; visited++) {
+        int index = body[visited];
+        if (returned[index] != -1) { continue; }
+        int[] next =
+          called[index] != -1 ? new int[] { index + 1 } : successors(index);
+        for (int successor : next) {
+          if (reached[successor] == procedure) { continue; }
+          reached[successor] = procedure;
+          body[count++] = successor;
+        }
+      }
+      bodies.add(Arrays.copyOf(body, count));
+    }
+    return bodies;
+  }
+
+  /** Forgets the calls and the returns of the procedures that can be
+   * entered other than by calling them, or that have a return outside their
+   * body. Returns whether any procedure was forgotten. */
+  private boolean remove_entered(List<int[]> bodies) {
+    boolean[] is_entered = new boolean[procedures.size()];
+    int[] returns = new int[procedures.size()];
+    for (int i = 0; i < program.size(); i++) {
+      if (returned[i] != -1) { returns[returned[i]]++; }
+    }
+    int[] reached = new int[program.size()];
+    Arrays.fill(reached, -1);
+    for (int procedure = 0; procedure < procedures.size(); procedure++) {
+      for (int i : bodies.get(procedure)) {
+        reached[i] = procedure;
+        if (returned[i] == procedure) { returns[procedure]--; }
+      }
+      is_entered[procedure] =
+        returns[procedure] != 0 || reached[0] == procedure;
+      for (int i : bodies.get(procedure)) {
+        for (int predecessor : predecessors[i]) {
+          boolean is_expected =
+            reached[predecessor] == procedure
+              || called[predecessor] == procedure
+              || returned[predecessor] != -1
+                && called[i - 1] == returned[predecessor]
+                && reached[i - 1] == procedure;
+          is_entered[procedure] |= !is_expected;
+        }
+      }
+    }
+    boolean is_changed = false;
+    for (int i = 0; i < program.size(); i++) {
+      if (called[i] != -1 && is_entered[called[i]]) {
+        called[i] = -1;
+        is_changed = true;
+      }
+      if (returned[i] != -1 && is_entered[returned[i]]) {
+        returned[i] = -1;
+        is_changed = true;
+      }
+    }
+    return is_changed;
+  }
+
+  /** Finds the registers that the procedures and the procedures they call
+   * might read or write. */
+  private void find_registers(List<int[]> bodies) {
+    List<Set<Register>> own = new ArrayList<>();
+    List<Set<Integer>> callees = new ArrayList<>();
+    for (int procedure = 0; procedure < procedures.size(); procedure++) {
+      Set<Register> registers = new HashSet<>();
+      Set<Integer> procedure_callees = new HashSet<>();
+      for (int i : bodies.get(procedure)) {
+        registers.addAll(program.instruction(i).registers());
+        if (called[i] != -1) { procedure_callees.add(called[i]); }
+      }
+      own.add(registers);
+      callees.add(procedure_callees);
+    }
+    int[] reached = new int[procedures.size()];
+    Arrays.fill(reached, -1);
+    for (int procedure = 0; procedure < procedures.size(); procedure++) {
+      Deque<Integer> pending = new ArrayDeque<>();
+      pending.push(procedure);
+      reached[procedure] = procedure;
+      while (!pending.isEmpty()) {
+        int callee = pending.pop();
+        procedures.get(procedure).addAll(own.get(callee));
+        for (int next : callees.get(callee)) {
+          if (reached[next] == procedure) { continue; }
+          reached[next] = procedure;
+          pending.push(next);
+        }
+      }
+    }
+  }
+
+  /** Returns the return addresses that are stored to each return location.
+   * Return locations that something else is stored to are not included. */
+  private Map<Register, Set<Integer>> find_returns() {
+    Map<Register, Set<Integer>> returns = new HashMap<>();
+    Set<Register> unknown = new HashSet<>();
+    for (int i = 0; i < program.size(); i++) {
+      Instruction instruction = program.instruction(i);
+      if (instruction instanceof Instruction.Set set
+        && set.source() instanceof Register.Instruction address)
+      {
+        returns
+          .computeIfAbsent(set.target(), r -> new HashSet<>())
+          .add(program.resolve(address.waypoint()));
+        continue;
+      }
+      instruction.defined().ifPresent(unknown::add);
+      if (instruction instanceof Instruction.DirectlyCompiled
+        || instruction instanceof Instruction.DirectlyCompiledWithDummy)
+      {
+        unknown.addAll(instruction.registers());
+      }
+    }
+    returns.keySet().removeAll(unknown);
+    return returns;
+  }
+}
@@ -1,6 +1,8 @@
 package hlml.builder;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
 
 /** Command that can be executed by a processor. */
 sealed interface Instruction {
@@ -33,6 +35,14 @@ sealed interface Instruction {
   /** Jumps that happen when the condition is false. */
   record JumpOnFalse(Waypoint goal, Register condition) implements Jump {}
 
+  /** Jumps that happen when the comparison of the operands is true. */
+  record JumpOnComparison(
+    Waypoint goal,
+    Comparison comparison,
+    Register left_operand,
+    Register right_operand) implements Jump
+  {}
+
   /** Instruction that marks the end of the program. Practically equivalent to
    * jumping back to the first instruction as the processor loops the program
    * when it runs out of instructions or comes to this instruction. */
@@ -264,4 +274,124 @@ sealed interface Instruction {
     @Override
     public String operation_code() { return "strictEqual"; }
   }
+
+  /** Returns the registers the instruction reads or writes. */
+  default List<Register> registers() {
+    return switch (this) {
+      case DirectlyCompiled i -> i.arguments();
+      case DirectlyCompiledWithDummy i -> i.arguments();
+      case JumpAlways i -> List.of();
+      case JumpOnTrue i -> List.of(i.condition());
+      case JumpOnFalse i -> List.of(i.condition());
+      case JumpOnComparison i -> List.of(i.left_operand(), i.right_operand());
+      case End i -> List.of();
+      case Set i -> List.of(i.target(), i.source());
+      case Sensor i -> List.of(i.target(), i.source(), i.property());
+      case UnaryOperation i -> List.of(i.target(), i.operand());
+      case BinaryOperation i ->
+        List.of(i.target(), i.left_operand(), i.right_operand());
+    };
+  }
+
+  /** Returns the register the instruction certainly writes to if there is
+   * one. Directly compiled instructions might write to any of their
+   * arguments, which are not known. */
+  default Optional<Register> defined() {
+    return switch (this) {
+      case Set i -> Optional.of(i.target());
+      case Sensor i -> Optional.of(i.target());
+      case Operation i -> Optional.of(i.target());
+      default -> Optional.empty();
+    };
+  }
+
+  /** Returns the registers the instruction reads. */
+  default List<Register> used() {
+    return switch (this) {
+      case Set i -> List.of(i.source());
+      case Sensor i -> List.of(i.source(), i.property());
+      case UnaryOperation i -> List.of(i.operand());
+      case BinaryOperation i -> List.of(i.left_operand(), i.right_operand());
+      default -> registers();
+    };
+  }
+
+  /** Returns the same instruction with the register it writes to replaced by
+   * what the first function returns for it, and each register it reads
+   * replaced by what the second function returns for it. Arguments of the
+   * directly compiled instructions are replaced as the registers that are
+   * read. */
+  default Instruction rename(
+    UnaryOperator<Register> target_renamer,
+    UnaryOperator<Register> operand_renamer)
+  {
+    return switch (this) {
+      case DirectlyCompiled i ->
+        new DirectlyCompiled(
+          i.text(),
+          i.arguments().stream().map(operand_renamer).toList());
+      case DirectlyCompiledWithDummy i ->
+        new DirectlyCompiledWithDummy(
+          i.text(),
+          i.dummy_argument(),
+          i.arguments().stream().map(operand_renamer).toList());
+      case JumpAlways i -> i;
+      case JumpOnTrue i ->
+        new JumpOnTrue(i.goal(), operand_renamer.apply(i.condition()));
+      case JumpOnFalse i ->
+        new JumpOnFalse(i.goal(), operand_renamer.apply(i.condition()));
+      case JumpOnComparison i ->
+        new JumpOnComparison(
+          i.goal(),
+          i.comparison(),
+          operand_renamer.apply(i.left_operand()),
+          operand_renamer.apply(i.right_operand()));
+      case End i -> i;
+      case Set i ->
+        new Set(
+          target_renamer.apply(i.target()),
+          operand_renamer.apply(i.source()));
+      case Sensor i ->
+        new Sensor(
+          target_renamer.apply(i.target()),
+          operand_renamer.apply(i.source()),
+          operand_renamer.apply(i.property()));
+      case BitwiseNot i ->
+        new BitwiseNot(
+          target_renamer.apply(i.target()),
+          operand_renamer.apply(i.operand()));
+      case BinaryOperation i ->
+        initializer(i)
+          .initialize(
+            target_renamer.apply(i.target()),
+            operand_renamer.apply(i.left_operand()),
+            operand_renamer.apply(i.right_operand()));
+    };
+  }
+
+  /** Returns the initializer of the same kind of binary operation. */
+  private static BinaryOperationInitializer initializer(
+    BinaryOperation operation)
+  {
+    return switch (operation) {
+      case Multiplication i -> Multiplication::new;
+      case Division i -> Division::new;
+      case IntegerDivision i -> IntegerDivision::new;
+      case Modulus i -> Modulus::new;
+      case Addition i -> Addition::new;
+      case Subtraction i -> Subtraction::new;
+      case LeftShift i -> LeftShift::new;
+      case RightShift i -> RightShift::new;
+      case BitwiseAnd i -> BitwiseAnd::new;
+      case BitwiseXor i -> BitwiseXor::new;
+      case BitwiseOr i -> BitwiseOr::new;
+      case LessThan i -> LessThan::new;
+      case LessThanOrEqualTo i -> LessThanOrEqualTo::new;
+      case GreaterThan i -> GreaterThan::new;
+      case GreaterThanOrEqualTo i -> GreaterThanOrEqualTo::new;
+      case EqualTo i -> EqualTo::new;
+      case NotEqualTo i -> NotEqualTo::new;
+      case StrictlyEqualTo i -> StrictlyEqualTo::new;
+    };
+  }
 }
@@ -0,0 +1,235 @@
+package hlml.builder;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/** Removes the jumps that only lead to other jumps. Retargets each jump to the
+ * instruction its goal finally leads to after skipping the unconditional
+ * jumps, turns the unconditional jumps that lead to an end into an end, and
+ * removes the jumps that lead to where the next instruction leads to and the
+ * instructions that cannot be reached anymore. Comparisons that jump over an
+ * unconditional jump are inverted to go where it goes instead. Repeats until
+ * nothing changes, because removing an instruction can make a jump lead to
+ * the next instruction. Does nothing if the program sets the program counter
+ * by itself other than returning from a procedure, as then the indices of the
+ * instructions cannot change. */
+final class JumpThreader {
+  /** Threads the jumps in a program. Returns the number of instructions that
+   * were removed. */
+  static int thread(Program program) {
+    JumpThreader threader = new JumpThreader(program);
+    return threader.thread();
+  }
+
+  /** Program whose jumps are threaded. */
+  private final Program program;
+
+  /** Constructor. */
+  private JumpThreader(Program program) {
+    this.program = program;
+  }
+
+  /** Threads the jumps. */
+  private int thread() {
+    if (program.sets_counter_directly()) { return 0; }
+    int initial_size = program.size();
+    boolean is_changed;
+    do {
+      is_changed = retarget_jumps();
+      is_changed |= remove_jumps_to_next();
+      is_changed |= invert_jumps_over_jumps();
+      is_changed |= remove_unreachable();
+    }
+    while (is_changed);
+    return initial_size - program.size();
+  }
+
+  /** Retargets the jumps to their final goals. Returns whether any jump was
+   * changed. */
+  private boolean retarget_jumps() {
+    boolean is_changed = false;
+    for (int i = 0; i < program.size(); i++) {
+      if (!(program.instruction(i) instanceof Instruction.Jump jump)) {
+        continue;
+      }
+      Waypoint goal = final_goal(jump.goal());
+      int goal_index = program.resolve(goal);
+      boolean is_ending =
+        goal_index >= program.size()
+          || program.instruction(goal_index) instanceof Instruction.End;
+      if (jump instanceof Instruction.JumpAlways && is_ending) {
+        program.replace(i, new Instruction.End());
+        is_changed = true;
+        continue;
+      }
+      if (goal.equals(jump.goal())) { continue; }
+      program.replace(i, retarget(jump, goal));
+      is_changed = true;
+    }
+    return is_changed;
+  }
+
+  /** Removes the jumps that lead to where the next instruction leads to.
+   * Returns whether any jump was removed. */
+  private boolean remove_jumps_to_next() {
+    boolean[] removed = new boolean[program.size()];
+    boolean is_changed = false;
+    for (int i = 0; i < program.size(); i++) {
+      if (!(program.instruction(i) instanceof Instruction.Jump jump)) {
+        continue;
+      }
+      int next = final_index(i + 1, i);
+      if (next != -1 && next == final_index(program.resolve(jump.goal()), i)) {
+        removed[i] = true;
+        is_changed = true;
+      }
+    }
+    if (is_changed) { program.remove(removed); }
+    return is_changed;
+  }
+
+  /** Inverts the comparisons that jump over an unconditional jump, such that
+   * they jump to where the unconditional jump goes, and removes the
+   * unconditional jump if nothing else leads to it. Returns whether any jump
+   * was inverted. */
+  private boolean invert_jumps_over_jumps() {
+    boolean[] targeted = new boolean[program.size() + 1];
+    for (int i = 0; i < program.size(); i++) {
+      Instruction instruction = program.instruction(i);
+      if (instruction instanceof Instruction.Jump jump) {
+        targeted[program.resolve(jump.goal())] = true;
+      }
+      for (Register register : instruction.registers()) {
+        if (register instanceof Register.Instruction address) {
+          targeted[program.resolve(address.waypoint())] = true;
+        }
+      }
+    }
+    boolean[] removed = new boolean[program.size()];
+    boolean is_changed = false;
+    for (int i = 0; i + 1 < program.size(); i++) {
+      if (!(program.instruction(i) instanceof Instruction.JumpOnComparison jump)
+        || program.resolve(jump.goal()) != i + 2
+        || !(program.instruction(i + 1) instanceof Instruction.JumpAlways over)
+        || targeted[i + 1]
+        || jump.comparison().inverse().isEmpty())
+      {
+        continue;
+      }
+      program
+        .replace(
+          i,
+          new Instruction.JumpOnComparison(
+            over.goal(),
+            jump.comparison().inverse().get(),
+            jump.left_operand(),
+            jump.right_operand()));
+      targeted[program.resolve(over.goal())] = true;
+      removed[i + 1] = true;
+      is_changed = true;
+      i++;
+    }
+    if (is_changed) { program.remove(removed); }
+    return is_changed;
+  }
+
+  /** Removes the instructions that cannot be reached from the first
+   * instruction or from a return address. Returns whether any instruction
+   * was removed. */
+  private boolean remove_unreachable() {
+    boolean[] reached = new boolean[program.size()];
+    Deque<Integer> pending = new ArrayDeque<>();
+    pending.push(0);
+    for (int i = 0; i < program.size(); i++) {
+      for (Register register : program.instruction(i).registers()) {
+        if (register instanceof Register.Instruction address) {
+          pending.push(program.resolve(address.waypoint()));
+        }
+      }
+    }
+    while (!pending.isEmpty()) {
+      int index = pending.pop();
+      if (index >= program.size() || reached[index]) { continue; }
+      reached[index] = true;
+      Instruction instruction = program.instruction(index);
+      if (instruction instanceof Instruction.Jump jump) {
+        pending.push(program.resolve(jump.goal()));
+      }
+      if (!is_leaving(instruction)) { pending.push(index + 1); }
+    }
+    boolean[] removed = new boolean[program.size()];
+    boolean is_changed = false;
+    for (int i = 0; i < program.size(); i++) {
+      removed[i] = !reached[i];
+      is_changed |= removed[i];
+    }
+    if (is_changed) { program.remove(removed); }
+    return is_changed;
+  }
+
+  /** Returns the waypoint a jump to the given waypoint finally leads to by
+   * skipping the unconditional jumps. Stops after visiting each instruction
+   * once to escape the unconditional jumps that form a loop. */
+  private Waypoint final_goal(Waypoint goal) {
+    for (int i = 0; i < program.size(); i++) {
+      int index = program.resolve(goal);
+      if (index >= program.size()
+        || !(program.instruction(index) instanceof Instruction.JumpAlways next))
+      {
+        break;
+      }
+      goal = next.goal();
+    }
+    return goal;
+  }
+
+  /** Returns the index of the instruction that the given index finally
+   * leads to by skipping the unconditional jumps, or -1 if it leads to the
+   * given jump. Returns the size of the program for the ends, as the
+   * processor does the same for running out of instructions. */
+  private int final_index(int index, int jump) {
+    for (int i = 0; i < program.size(); i++) {
+      if (index == jump) { return -1; }
+      if (index >= program.size()) { break; }
+      switch (program.instruction(index)) {
+        case Instruction.End next -> { return program.size(); }
+        case Instruction.JumpAlways next ->
+          index = program.resolve(next.goal());
+        default -> { return index; }
+      }
+    }
+    return index;
+  }
+
+  /** Returns whether the processor never runs the instruction after the
+   * given one right after it. */
+  private static boolean is_leaving(Instruction instruction) {
+    return switch (instruction) {
+      case Instruction.JumpAlways i -> true;
+      case Instruction.End i -> true;
+      case Instruction.Set i -> Program.is_counter(i.target());
+      default -> false;
+    };
+  }
+
+  /** Returns a jump that is the same as the given one but to another
+   * goal. */
+  private static Instruction.Jump retarget(
+    Instruction.Jump jump,
+    Waypoint goal)
+  {
+    return switch (jump) {
+      case Instruction.JumpAlways j -> new Instruction.JumpAlways(goal);
+      case Instruction.JumpOnTrue j ->
+        new Instruction.JumpOnTrue(goal, j.condition());
+      case Instruction.JumpOnFalse j ->
+        new Instruction.JumpOnFalse(goal, j.condition());
+      case Instruction.JumpOnComparison j ->
+        new Instruction.JumpOnComparison(
+          goal,
+          j.comparison(),
+          j.left_operand(),
+          j.right_operand());
+    };
+  }
+}
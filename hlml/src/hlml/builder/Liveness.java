@@ -0,0 +1,195 @@
+package hlml.builder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Variables whose values might be read before they are written again, at
+ * each instruction of a program. Only the temporaries and the locals are
+ * tracked, as the other registers are globals that are shared with the
+ * processor, built-ins or literals. Directly compiled instructions read their
+ * arguments and might write to them, so they do not end the liveness of
+ * their arguments. Copies and operations whose targets are not live do not
+ * make their operands live, as they can be removed. Variables that a called
+ * procedure does not read or write skip over the call, so they are not live in
+ * the procedure because they are live after another call to it. Variables are
+ * indexed in the order they first appear in the program. */
+final class Liveness {
+  /** Analyzes the liveness of the variables in a program. */
+  static Liveness analyze(Program program, FlowGraph graph) {
+    Liveness liveness =
+      new Liveness(program, graph, new ArrayList<>(), new HashMap<>());
+    liveness.analyze();
+    return liveness;
+  }
+
+  /** Returns whether the liveness of a register is tracked. */
+  static boolean is_tracked(Register register) {
+    return register instanceof Register.Temporary
+      || register instanceof Register.Local;
+  }
+
+  /** Returns whether an instruction only writes the result of copying or
+   * operating on registers to a tracked variable. */
+  static boolean is_store(Instruction instruction) {
+    return switch (instruction) {
+      case Instruction.Set i -> is_tracked(i.target());
+      case Instruction.Operation i -> is_tracked(i.target());
+      default -> false;
+    };
+  }
+
+  /** Program whose variables are analyzed. */
+  private final Program program;
+
+  /** Instructions that can run after each other in the program. */
+  private final FlowGraph graph;
+
+  /** Tracked variables in the order they first appear. */
+  private final List<Register> variables;
+
+  /** Indices of the tracked variables. */
+  private final Map<Register, Integer> indices;
+
+  /** Indices of the variables that are live before each instruction. */
+  private BitSet[] live_in;
+
+  /** Indices of the variables that are live after each instruction. */
+  private BitSet[] live_out;
+
+  /** Indices of the variables that each called procedure might read or
+   * write. */
+  private BitSet[] procedure_variables;
+
+  /** Constructor. */
+  private Liveness(
+    Program program,
+    FlowGraph graph,
+    List<Register> variables,
+    Map<Register, Integer> indices)
+  {
+    this.program = program;
+    this.graph = graph;
+    this.variables = variables;
+    this.indices = indices;
+  }
+
+  /** Returns the number of tracked variables. */
+  int variable_count() {
+    return variables.size();
+  }
+
+  /** Returns the variable at an index. */
+  Register variable(int index) {
+    return variables.get(index);
+  }
+
+  /** Returns the index of a variable, or -1 if it is not tracked. */
+  int index(Register register) {
+    return indices.getOrDefault(register, -1);
+  }
+
+  /** Returns the indices of the variables that are live before the
+   * instruction at an index. Must not be changed. */
+  BitSet live_in(int index) {
+    return live_in[index];
+  }
+
+  /** Returns the indices of the variables that are live after the
+   * instruction at an index. Must not be changed. */
+  BitSet live_out(int index) {
+    return live_out[index];
+  }
+
+  /** Returns the indices of the variables that a called procedure might read
+   * or write. Must not be changed. */
+  BitSet procedure_variables(int procedure) {
+    return procedure_variables[procedure];
+  }
+
+  /** Finds the live variables at each instruction until they do not
+   * change. Visits the instructions backwards in order, and again when the
+   * variables live before an instruction they precede change. */
+  private void analyze() {
+    int size = program.size();
+    int[][] used = new int[size][];
+    int[] killed = new int[size];
+    boolean[] is_store = new boolean[size];
+    for (int i = 0; i < size; i++) {
+      Instruction instruction = program.instruction(i);
+      for (Register register : instruction.registers()) {
+        if (is_tracked(register) && !indices.containsKey(register)) {
+          indices.put(register, variables.size());
+          variables.add(register);
+        }
+      }
+      used[i] =
+        instruction
+          .used()
+          .stream()
+          .filter(Liveness::is_tracked)
+          .mapToInt(this::index)
+          .toArray();
+      killed[i] = instruction.defined().map(this::index).orElse(-1);
+      is_store[i] = is_store(instruction);
+    }
+    procedure_variables = new BitSet[graph.procedure_count()];
+    for (int i = 0; i < graph.procedure_count(); i++) {
+      BitSet procedure = new BitSet();
+      for (Register register : graph.registers(i)) {
+        int variable = index(register);
+        if (variable != -1) { procedure.set(variable); }
+      }
+      procedure_variables[i] = procedure;
+    }
+    live_in = new BitSet[size];
+    live_out = new BitSet[size];
+    for (int i = 0; i < size; i++) {
+      live_in[i] = new BitSet();
+      live_out[i] = new BitSet();
+    }
+    int[] order = graph.order();
+    int[] positions = new int[size];
+    for (int i = 0; i < size; i++) { positions[order[i]] = i; }
+    BitSet pending = new BitSet();
+    pending.set(0, size);
+    int position = size - 1;
+    BitSet in = new BitSet();
+    BitSet skipping = new BitSet();
+    while (!pending.isEmpty()) {
+      position = pending.previousSetBit(position);
+      if (position == -1) { position = pending.length() - 1; }
+      pending.clear(position);
+      int i = order[position];
+      BitSet out = live_out[i];
+      for (int successor : graph.successors(i)) {
+        out.or(live_in[successor]);
+      }
+      if (graph.returned(i) != -1) {
+        out.and(procedure_variables[graph.returned(i)]);
+      }
+      if (graph.called(i) != -1) {
+        skipping.clear();
+        skipping.or(live_in[i + 1]);
+        skipping.andNot(procedure_variables[graph.called(i)]);
+        out.or(skipping);
+      }
+      in.clear();
+      in.or(out);
+      if (killed[i] != -1) { in.clear(killed[i]); }
+      if (!is_store[i] || out.get(killed[i])) {
+        for (int variable : used[i]) { in.set(variable); }
+      }
+      if (in.equals(live_in[i])) { continue; }
+      live_in[i].or(in);
+      for (int predecessor : graph.predecessors(i)) {
+        pending.set(positions[predecessor]);
+      }
+      if (i != 0 && graph.called(i - 1) != -1) {
+        pending.set(positions[i - 1]);
+      }
+    }
+  }
+}
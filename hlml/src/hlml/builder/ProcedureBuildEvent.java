@@ -0,0 +1,26 @@
+package hlml.builder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recording of building the body of a procedure or an entrypoint. */
+@Name("hlml.ProcedureBuild")
+@Label("Procedure Build")
+@Category({"HLML", "Compiler"})
+@Description("Building the instructions of the body of a procedure.")
+final class ProcedureBuildEvent extends Event {
+  /** Name of the source the procedure is in. */
+  @Label("Source")
+  String source;
+
+  /** Identifier of the procedure, which is `entrypoint` for an entrypoint. */
+  @Label("Procedure")
+  String procedure;
+
+  /** Number of instructions that were built. */
+  @Label("Instructions")
+  long instructions;
+}
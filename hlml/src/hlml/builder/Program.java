@@ -2,35 +2,118 @@ package hlml.builder;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.OptionalInt;
 
-import hlml.FloatingPointFormatter;
 import hlml.PackedColorFormatter;
 
 /** Ordered collection of instructions are executed sequentially for a
  * meaningful usage of the processor. */
 final class Program {
-  /** Returns an empty program. */
-  static Program create() {
-    return new Program(new ArrayList<>(), new HashMap<>());
+  /** Returns an empty program that is built from the given target. */
+  static Program create(String name) {
+    return new Program(name, new ArrayList<>(), new int[16], 0);
   }
 
+  /** Name of the target the program is built from. */
+  private final String name;
+
   /** Instructions that are added to the program. */
   private final List<Instruction> instructions;
 
-  /** Instruction indices that can be used to jump to an instruction. */
-  private final Map<Waypoint, OptionalInt> waypoints;
+  /** Instruction indices that can be used to jump to an instruction by the
+   * index of their waypoint, or -1 for the ones that are not defined yet. */
+  private int[] waypoints;
+
+  /** Number of waypoints that were created. */
+  private int waypoint_count;
 
   /** Constructs. */
   private Program(
+    String name,
     List<Instruction> instructions,
-    Map<Waypoint, OptionalInt> waypoints)
+    int[] waypoints,
+    int waypoint_count)
   {
+    this.name = name;
     this.instructions = instructions;
     this.waypoints = waypoints;
+    this.waypoint_count = waypoint_count;
+  }
+
+  /** Returns the number of instructions. */
+  int size() {
+    return instructions.size();
+  }
+
+  /** Returns the instruction at an index. */
+  Instruction instruction(int index) {
+    return instructions.get(index);
+  }
+
+  /** Replaces the instruction at an index. */
+  void replace(int index, Instruction instruction) {
+    instructions.set(index, instruction);
+  }
+
+  /** Removes the instructions whose indices are marked. Waypoints to a
+   * removed instruction point to the first instruction after it that is
+   * kept. */
+  void remove(boolean[] removed) {
+    int[] moved = new int[instructions.size() + 1];
+    List<Instruction> kept = new ArrayList<>();
+    for (int i = 0; i < instructions.size(); i++) {
+      moved[i] = kept.size();
+      if (!removed[i]) { kept.add(instructions.get(i)); }
+    }
+    moved[instructions.size()] = kept.size();
+    for (int i = 0; i < waypoint_count; i++) {
+      if (waypoints[i] != -1) { waypoints[i] = moved[waypoints[i]]; }
+    }
+    instructions.clear();
+    instructions.addAll(kept);
+  }
+
+  /** Returns whether the program sets the program counter by itself other
+   * than returning from a procedure. Then the instructions that can run after
+   * an instruction are not known, and the indices of the instructions cannot
+   * change. */
+  boolean sets_counter_directly() {
+    for (Instruction instruction : instructions) {
+      if (sets_counter_directly(instruction)) { return true; }
+    }
+    return false;
+  }
+
+  /** Returns whether an instruction returns from a procedure by setting the
+   * program counter to the procedure's return location. */
+  static boolean is_return(Instruction instruction) {
+    return instruction instanceof Instruction.Set set
+      && is_counter(set.target())
+      && set.source() instanceof Register.Local source
+      && source.identifier().equals("return$location");
+  }
+
+  /** Returns whether a register is the program counter. */
+  static boolean is_counter(Register register) {
+    return register instanceof Register.Builtin builtin
+      && builtin.name().equals("counter");
+  }
+
+  /** Returns whether an instruction sets the program counter to a value that
+   * is not a return address. */
+  private static boolean sets_counter_directly(Instruction instruction) {
+    if (is_return(instruction)) { return false; }
+    return switch (instruction) {
+      case Instruction.DirectlyCompiled i ->
+        i.arguments().stream().anyMatch(Program::is_counter);
+      case Instruction.DirectlyCompiledWithDummy i ->
+        i.arguments().stream().anyMatch(Program::is_counter);
+      case Instruction.Set i -> is_counter(i.target());
+      case Instruction.Sensor i -> is_counter(i.target());
+      case Instruction.Operation i -> is_counter(i.target());
+      default -> false;
+    };
   }
 
   /** Add an instruction the the end of the program. */
@@ -40,91 +123,117 @@ final class Program {
 
   /** Returns a new waypoint at an unknown position. */
   Waypoint waypoint() {
-    Waypoint waypoint = new Waypoint(waypoints.size());
-    waypoints.put(waypoint, OptionalInt.empty());
+    if (waypoint_count == waypoints.length) {
+      waypoints = Arrays.copyOf(waypoints, waypoint_count * 2);
+    }
+    waypoints[waypoint_count] = -1;
+    Waypoint waypoint = new Waypoint(waypoint_count);
+    waypoint_count++;
     return waypoint;
   }
 
   /** Makes the given waypoint point to the next instruction that will be
    * given. */
   void define(Waypoint waypoint) {
-    waypoints.put(waypoint, OptionalInt.of(instructions.size()));
+    waypoints[waypoint.index()] = instructions.size();
   }
 
   /** Returns the index of the instruction that is pointed to by a waypoint. */
   int resolve(Waypoint waypoint) {
-    return waypoints.get(waypoint).getAsInt();
+    int index = waypoints[waypoint.index()];
+    if (index == -1) {
+      throw new IllegalStateException(
+        "Waypoint `%d` is not defined!".formatted(waypoint.index()));
+    }
+    return index;
   }
 
-  /** Appends the program to an appendable. */
-  void append_to(Appendable appendable) throws IOException {
+  /** Appends the program to an emitter, ending each instruction with the
+   * given line separator. */
+  void append_to(Emitter emitter, String line_separator) throws IOException {
+    AppendEvent event = new AppendEvent();
+    event.begin();
+    long start = emitter.appended();
     for (Instruction instruction : instructions) {
-      append_instruction(appendable, instruction);
-      appendable.append(System.lineSeparator());
+      append_instruction(emitter, instruction);
+      emitter.append(line_separator);
+    }
+    if (event.shouldCommit()) {
+      event.source = name;
+      event.bytes = emitter.appended() - start;
+      event.instructions = instructions.size();
+      event.commit();
     }
   }
 
   /** Appends an instruction. */
   private void append_instruction(
-    Appendable appendable,
+    Emitter emitter,
     Instruction instruction)
     throws IOException
   {
     switch (instruction) {
       case Instruction.DirectlyCompiled i -> {
-        appendable.append(i.text());
+        emitter.append(i.text());
         for (Register argument : i.arguments()) {
-          appendable.append(' ');
-          append_register(appendable, argument);
+          emitter.append(' ');
+          append_register(emitter, argument);
         }
       }
       case Instruction.DirectlyCompiledWithDummy i -> {
-        appendable.append(i.text());
-        appendable.append(' ');
-        append_register(appendable, i.arguments().get(0));
-        appendable.append(' ');
-        appendable.append(i.dummy_argument());
+        emitter.append(i.text());
+        emitter.append(' ');
+        append_register(emitter, i.arguments().get(0));
+        emitter.append(' ');
+        emitter.append(i.dummy_argument());
         for (int j = 1; j < i.arguments().size(); j++) {
-          appendable.append(' ');
-          append_register(appendable, i.arguments().get(j));
+          emitter.append(' ');
+          append_register(emitter, i.arguments().get(j));
         }
       }
       case Instruction.JumpAlways i -> {
-        appendable.append("jump ");
-        appendable.append(Integer.toString(resolve(i.goal())));
-        appendable.append(" always");
+        emitter.append("jump ");
+        emitter.append(resolve(i.goal()));
+        emitter.append(" always");
       }
       case Instruction.JumpOnTrue i -> {
-        appendable.append("jump ");
-        appendable.append(Integer.toString(resolve(i.goal())));
-        appendable.append(" equal true ");
-        append_register(appendable, i.condition());
+        emitter.append("jump ");
+        emitter.append(resolve(i.goal()));
+        emitter.append(" equal true ");
+        append_register(emitter, i.condition());
       }
       case Instruction.JumpOnFalse i -> {
-        appendable.append("jump ");
-        appendable.append(Integer.toString(resolve(i.goal())));
-        appendable.append(" equal false ");
-        append_register(appendable, i.condition());
+        emitter.append("jump ");
+        emitter.append(resolve(i.goal()));
+        emitter.append(" equal false ");
+        append_register(emitter, i.condition());
+      }
+      case Instruction.JumpOnComparison i -> {
+        emitter.append("jump ");
+        emitter.append(resolve(i.goal()));
+        emitter.append(' ');
+        emitter.append(i.comparison().condition_code());
+        append_operands(emitter, i.left_operand(), i.right_operand());
       }
-      case Instruction.End i -> appendable.append("end");
+      case Instruction.End i -> emitter.append("end");
       case Instruction.Set i -> {
-        appendable.append("set");
-        append_operands(appendable, i.target(), i.source());
+        emitter.append("set");
+        append_operands(emitter, i.target(), i.source());
       }
       case Instruction.Sensor i -> {
-        appendable.append("sensor");
-        append_operands(appendable, i.target(), i.source(), i.property());
+        emitter.append("sensor");
+        append_operands(emitter, i.target(), i.source(), i.property());
       }
       case Instruction.UnaryOperation i -> {
-        appendable.append("op ");
-        appendable.append(i.operation_code());
-        append_operands(appendable, i.target(), i.operand());
+        emitter.append("op ");
+        emitter.append(i.operation_code());
+        append_operands(emitter, i.target(), i.operand());
       }
       case Instruction.BinaryOperation i -> {
-        appendable.append("op ");
-        appendable.append(i.operation_code());
+        emitter.append("op ");
+        emitter.append(i.operation_code());
         append_operands(
-          appendable,
+          emitter,
           i.target(),
           i.left_operand(),
           i.right_operand());
@@ -133,57 +242,57 @@ final class Program {
   }
 
   /** Append operands. */
-  private void append_operands(Appendable appendable, Register... operands)
+  private void append_operands(Emitter emitter, Register... operands)
     throws IOException
   {
     for (Register operand : operands) {
-      appendable.append(' ');
-      append_register(appendable, operand);
+      emitter.append(' ');
+      append_register(emitter, operand);
     }
   }
 
   /** Appends a register. */
-  private void append_register(Appendable appendable, Register register)
+  private void append_register(Emitter emitter, Register register)
     throws IOException
   {
     switch (register) {
       case Register.Global r -> {
-        appendable.append(r.name().source());
-        appendable.append('$');
-        appendable.append(r.name().identifier());
+        emitter.append(r.name().source());
+        emitter.append('$');
+        emitter.append(r.name().identifier());
       }
       case Register.Local r -> {
-        appendable.append(r.symbol().source());
-        appendable.append('$');
-        appendable.append(r.symbol().identifier());
-        appendable.append('$');
-        appendable.append(r.identifier());
+        emitter.append(r.symbol().source());
+        emitter.append('$');
+        emitter.append(r.symbol().identifier());
+        emitter.append('$');
+        emitter.append(r.identifier());
       }
       case Register.Temporary r -> {
-        appendable.append('_');
-        appendable.append(Integer.toString(r.index()));
+        emitter.append('_');
+        emitter.append(r.index());
       }
-      case Register.Link r -> appendable.append(r.building());
+      case Register.Link r -> emitter.append(r.building());
       case Register.NumberConstant r ->
-        appendable.append(FloatingPointFormatter.format(r.value()));
+        emitter.append(r.value());
       case Register.ColorConstant r -> {
-        appendable.append('%');
-        appendable.append(PackedColorFormatter.format(r.value()));
+        emitter.append('%');
+        emitter.append(PackedColorFormatter.format(r.value()));
       }
       case Register.StringConstant r -> {
-        appendable.append('"');
-        appendable.append(r.value());
-        appendable.append('"');
+        emitter.append('"');
+        emitter.append(r.value());
+        emitter.append('"');
       }
       case Register.Instruction r ->
-        appendable.append(Integer.toString(resolve(r.waypoint())));
+        emitter.append(resolve(r.waypoint()));
       case Register.Builtin r -> {
-        appendable.append('@');
-        appendable.append(r.name());
+        emitter.append('@');
+        emitter.append(r.name());
       }
-      case Register.False r -> appendable.append("false");
-      case Register.True r -> appendable.append("true");
-      case Register.Null r -> appendable.append("null");
+      case Register.False r -> emitter.append("false");
+      case Register.True r -> emitter.append("true");
+      case Register.Null r -> emitter.append("null");
     }
   }
 }
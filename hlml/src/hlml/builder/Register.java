@@ -15,7 +15,7 @@ sealed interface Register {
   /** Memory location that hosts a local variable. */
   record Local(Name symbol, String identifier) implements Register {
     @Override
-    public boolean is_volatile() { return true; }
+    public boolean is_volatile() { return false; }
   }
 
   /** Memory location that holds a temporary value. */
@@ -145,7 +145,8 @@ sealed interface Register {
     return new Null();
   }
 
-  /** Returns whether setting this register cannot be ignored even if it would
-   * not be read afterwards. */
+  /** Returns whether something other than the program might read or change
+   * this register. Then, setting it cannot be ignored even if the program
+   * would not read it afterwards, and its value cannot be forwarded. */
   boolean is_volatile();
 }
@@ -0,0 +1,211 @@
+package hlml.builder;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/** Renames the temporaries and the locals onto as few variables as possible.
+ * Gives two of them the same variable if neither is live where the other is
+ * written, preferring the variable of the other side of a copy such that the
+ * copy becomes a copy to itself, which is removed. Directly compiled
+ * instructions might write to any of their arguments, so their arguments do
+ * not share a variable with each other or with the ones that are live after
+ * them. Variables that are live across a call but are not read or written by
+ * the called procedure are not live in the procedure, so they do not share a
+ * variable with the ones the procedure reads or writes. Variables that are
+ * live at the start of the program might be read before they are written, so
+ * they do not share a variable with each other.
+ * Does nothing if the program sets the program counter by itself other than
+ * returning from a procedure. */
+final class RegisterAllocator {
+  /** Allocates the variables of a program. Returns the number of
+   * temporaries and locals in the program afterwards. */
+  static int allocate(Program program) {
+    RegisterAllocator allocator = new RegisterAllocator(program);
+    return allocator.allocate();
+  }
+
+  /** Program whose variables are allocated. */
+  private final Program program;
+
+  /** Constructor. */
+  private RegisterAllocator(Program program) {
+    this.program = program;
+  }
+
+  /** Allocates the variables. */
+  private int allocate() {
+    Optional<FlowGraph> found_graph = FlowGraph.of(program);
+    if (found_graph.isEmpty()) {
+      Set<Register> variables = new HashSet<>();
+      for (int i = 0; i < program.size(); i++) {
+        for (Register register : program.instruction(i).registers()) {
+          if (Liveness.is_tracked(register)) { variables.add(register); }
+        }
+      }
+      return variables.size();
+    }
+    FlowGraph graph = found_graph.get();
+    Liveness liveness = Liveness.analyze(program, graph);
+    int[] colors = color(interfere(graph, liveness), find_copies(liveness));
+    int color_count = 0;
+    for (int color : colors) { color_count = Math.max(color_count, color + 1); }
+    boolean[] removed = new boolean[program.size()];
+    boolean is_changed = false;
+    for (int i = 0; i < program.size(); i++) {
+      Instruction renamed =
+        program
+          .instruction(i)
+          .rename(
+            r -> allocated(liveness, colors, r),
+            r -> allocated(liveness, colors, r));
+      program.replace(i, renamed);
+      if (renamed instanceof Instruction.Set set
+        && Liveness.is_tracked(set.target())
+        && set.target().equals(set.source()))
+      {
+        removed[i] = true;
+        is_changed = true;
+      }
+    }
+    if (is_changed) { program.remove(removed); }
+    return color_count;
+  }
+
+  /** Returns the interference of each variable, which are the other
+   * variables that cannot share a processor variable with it. */
+  private List<BitSet> interfere(FlowGraph graph, Liveness liveness) {
+    List<BitSet> interferences = new ArrayList<>();
+    for (int i = 0; i < liveness.variable_count(); i++) {
+      interferences.add(new BitSet(liveness.variable_count()));
+    }
+    for (int i = 0; i < program.size(); i++) {
+      Instruction instruction = program.instruction(i);
+      BitSet live = liveness.live_out(i);
+      List<Integer> written = new ArrayList<>();
+      Optional<Register> defined = instruction.defined();
+      if (defined.isPresent()) {
+        written.add(liveness.index(defined.get()));
+      }
+      if (is_directly_compiled(instruction)) {
+        for (Register register : instruction.registers()) {
+          written.add(liveness.index(register));
+        }
+      }
+      int copied = -1;
+      if (instruction instanceof Instruction.Set set) {
+        copied = liveness.index(set.source());
+      }
+      for (int variable : written) {
+        if (variable == -1) { continue; }
+        BitSet interfered = interferences.get(variable);
+        boolean is_copy_interfered = copied != -1 && interfered.get(copied);
+        interfered.or(live);
+        if (copied != -1 && !is_copy_interfered) { interfered.clear(copied); }
+        for (int other : written) {
+          if (other != -1) { interfered.set(other); }
+        }
+      }
+    }
+    BitSet skipping = new BitSet();
+    for (int i = 0; i < program.size(); i++) {
+      if (graph.called(i) == -1) { continue; }
+      BitSet procedure = liveness.procedure_variables(graph.called(i));
+      skipping.clear();
+      skipping.or(liveness.live_in(i + 1));
+      skipping.andNot(procedure);
+      for (int variable = skipping.nextSetBit(0); variable >= 0;
+        variable = skipping.nextSetBit(variable + 1))
+      {
+        interferences.get(variable).or(procedure);
+      }
+    }
+    BitSet initial = liveness.live_in(0);
+    for (int variable = initial.nextSetBit(0); variable >= 0;
+      variable = initial.nextSetBit(variable + 1))
+    {
+      interferences.get(variable).or(initial);
+    }
+    for (int variable = 0; variable < interferences.size(); variable++) {
+      BitSet interfered = interferences.get(variable);
+      for (int other = interfered.nextSetBit(0); other >= 0;
+        other = interfered.nextSetBit(other + 1))
+      {
+        interferences.get(other).set(variable);
+      }
+    }
+    for (int variable = 0; variable < interferences.size(); variable++) {
+      interferences.get(variable).clear(variable);
+    }
+    return interferences;
+  }
+
+  /** Returns the variables that are copied to or from each variable. */
+  private List<Set<Integer>> find_copies(Liveness liveness) {
+    List<Set<Integer>> copies = new ArrayList<>();
+    for (int i = 0; i < liveness.variable_count(); i++) {
+      copies.add(new HashSet<>());
+    }
+    for (int i = 0; i < program.size(); i++) {
+      if (!(program.instruction(i) instanceof Instruction.Set set)) {
+        continue;
+      }
+      int target = liveness.index(set.target());
+      int source = liveness.index(set.source());
+      if (target == -1 || source == -1) { continue; }
+      copies.get(target).add(source);
+      copies.get(source).add(target);
+    }
+    return copies;
+  }
+
+  /** Returns the index of the processor variable each variable is allocated
+   * to. Allocates the variables in order, giving each the first processor
+   * variable that is not allocated to the variables it interferes with,
+   * unless one of the variables it is copied with can share its processor
+   * variable. */
+  private static int[] color(
+    List<BitSet> interferences,
+    List<Set<Integer>> copies)
+  {
+    int[] colors = new int[interferences.size()];
+    for (int i = 0; i < colors.length; i++) {
+      BitSet taken = new BitSet();
+      BitSet interfered = interferences.get(i);
+      for (int j = interfered.nextSetBit(0); j >= 0 && j < i;
+        j = interfered.nextSetBit(j + 1))
+      {
+        taken.set(colors[j]);
+      }
+      colors[i] = taken.nextClearBit(0);
+      for (int copy : copies.get(i)) {
+        if (copy < i && !taken.get(colors[copy])) {
+          colors[i] = colors[copy];
+          break;
+        }
+      }
+    }
+    return colors;
+  }
+
+  /** Returns the processor variable that a variable is allocated to. */
+  private static Register allocated(
+    Liveness liveness,
+    int[] colors,
+    Register register)
+  {
+    int index = liveness.index(register);
+    if (index == -1) { return register; }
+    return new Register.Temporary(colors[index]);
+  }
+
+  /** Returns whether an instruction is compiled directly, which might write
+   * to any of its arguments. */
+  private static boolean is_directly_compiled(Instruction instruction) {
+    return instruction instanceof Instruction.DirectlyCompiled
+      || instruction instanceof Instruction.DirectlyCompiledWithDummy;
+  }
+}
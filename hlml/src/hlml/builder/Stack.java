@@ -8,9 +8,16 @@ final class Stack {
   /** Current number of temporary value holding registers. */
   private int length;
 
+  /** Largest number of temporary value holding registers that were used at
+   * the same time. */
+  private int peak;
+
   /** Constructor. */
   private Stack(int length) { this.length = length; }
 
+  /** Returns the number of temporary registers the program needs. */
+  int peak() { return peak; }
+
   /** Returns a temporary register for a calculation involving the given
    * registers. Used for optimizing the register usage when the operands are
    * temporaries. */
@@ -30,7 +37,9 @@ final class Stack {
 
   /** Returns a temporary register. */
   Register push() {
-    return new Register.Temporary(length++);
+    Register temporary = new Register.Temporary(length++);
+    peak = Math.max(peak, length);
+    return temporary;
   }
 
   /** Marks the given register unused if it is a temporary. Useful for reducing
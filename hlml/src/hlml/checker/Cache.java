@@ -0,0 +1,170 @@
+package hlml.checker;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import hlml.Recorder;
+import hlml.Source;
+import hlml.Timings;
+import hlml.loader.LoadedSource;
+import hlml.loader.SourceProvider;
+import hlml.resolver.ResolvedSource;
+import hlml.resolver.Resolver;
+
+/** Sources that are kept between the checks of different targets. Sources are
+ * recorded by the path and the hash of the contents of their file. Useful for
+ * skipping the sources that did not change when the compiler is kept alive
+ * between compilations. Can be shared by compilations that run concurrently. */
+public final class Cache {
+  /** Returns an empty cache. */
+  public static Cache create() {
+    return new Cache(new HashMap<>(), new HashMap<>());
+  }
+
+  /** Recorded sources by the path to their file. */
+  private final Map<Path, CachedSource> entries;
+
+  /** Files of the sources that depended on a file when they were checked. */
+  private final Map<Path, Set<Path>> dependents;
+
+  /** Constructor. */
+  private Cache(
+    Map<Path, CachedSource> entries,
+    Map<Path, Set<Path>> dependents)
+  {
+    this.entries = entries;
+    this.dependents = dependents;
+  }
+
+  /** Returns the resolution of the source at the given file, which is loaded
+   * by the given provider. Measures the phases if there are timings. Resolves
+   * the source again only if the contents of the file changed since it was
+   * recorded, which drops the checked sources of the file and all the files
+   * that depended on it. */
+  ResolvedSource resolve(
+    SourceProvider provider,
+    Path file,
+    Optional<Recorder> recorder,
+    Optional<Timings> timings)
+  {
+    Path key = key(file);
+    String name = file.getFileName().toString();
+    name = name.substring(0, name.length() - Source.extension.length());
+    LoadedSource loaded_source =
+      Timings
+        .measure(timings, Timings.Phase.load, name, () -> provider.load(file));
+    byte[] hash = hash(loaded_source.contents);
+    Optional<ResolvedSource> recorded = recorded_resolution(key, hash);
+    if (recorded.isPresent()) { return recorded.get(); }
+    ResolvedSource resolution =
+      Resolver.resolve(loaded_source, recorder, timings);
+    return record_resolution(key, hash, resolution);
+  }
+
+  /** Returns the recorded resolution of a file if it has the given hash. */
+  private synchronized Optional<ResolvedSource> recorded_resolution(
+    Path key,
+    byte[] hash)
+  {
+    CachedSource entry = entries.get(key);
+    if (entry == null || !Arrays.equals(entry.hash(), hash)) {
+      return Optional.empty();
+    }
+    return Optional.of(entry.resolution());
+  }
+
+  /** Records the resolution of a file that changed. Returns the recorded
+   * resolution, which is the one that was recorded by another compilation if
+   * it resolved the same contents concurrently. */
+  private synchronized ResolvedSource record_resolution(
+    Path key,
+    byte[] hash,
+    ResolvedSource resolution)
+  {
+    CachedSource entry = entries.get(key);
+    if (entry != null && Arrays.equals(entry.hash(), hash)) {
+      return entry.resolution();
+    }
+    entries
+      .put(key, new CachedSource(hash, resolution, Optional.empty(), Map.of()));
+    invalidate(key);
+    return resolution;
+  }
+
+  /** Returns the recorded source at the given file if it was checked after its
+   * contents last changed. Whether the dependencies changed is not known. */
+  synchronized Optional<CachedSource> find(Path file) {
+    CachedSource entry = entries.get(key(file));
+    if (entry == null || entry.source().isEmpty()) { return Optional.empty(); }
+    return Optional.of(entry);
+  }
+
+  /** Records a source that was checked from the given file, which must be
+   * resolved through this cache. */
+  synchronized void record(
+    Path file,
+    Semantic.Source source,
+    Map<String, Semantic.Source> dependencies,
+    Set<Path> dependency_files)
+  {
+    Path key = key(file);
+    CachedSource entry = entries.get(key);
+    entries
+      .put(
+        key,
+        new CachedSource(
+          entry.hash(),
+          entry.resolution(),
+          Optional.of(source),
+          Map.copyOf(dependencies)));
+    for (Path dependency_file : dependency_files) {
+      dependents
+        .computeIfAbsent(key(dependency_file), k -> new HashSet<>())
+        .add(key);
+    }
+  }
+
+  /** Drops the checked sources of the files that depended on the given file
+   * directly or transitively. */
+  private void invalidate(Path key) {
+    List<Path> invalidated = new ArrayList<>();
+    invalidated.add(key);
+    while (!invalidated.isEmpty()) {
+      Path dependency = invalidated.remove(invalidated.size() - 1);
+      Set<Path> dependency_dependents = dependents.remove(dependency);
+      if (dependency_dependents == null) { continue; }
+      for (Path dependent : dependency_dependents) {
+        CachedSource entry = entries.get(dependent);
+        if (entry != null) { entries.put(dependent, entry.unchecked()); }
+        invalidated.add(dependent);
+      }
+    }
+  }
+
+  /** Returns the hash of the contents of a file. */
+  private static byte[] hash(String contents) {
+    try {
+      return MessageDigest
+        .getInstance("SHA-256")
+        .digest(contents.getBytes(StandardCharsets.UTF_8));
+    }
+    catch (NoSuchAlgorithmException cause) {
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /** Returns the key the given file is recorded with. */
+  private static Path key(Path file) {
+    return file.toAbsolutePath().normalize();
+  }
+}
@@ -0,0 +1,21 @@
+package hlml.checker;
+
+import java.util.Map;
+import java.util.Optional;
+
+import hlml.resolver.ResolvedSource;
+
+/** Source that is recorded to a cache with the hash of its contents. Holds the
+ * checked source with the checked sources it depended on, unless it was not
+ * checked yet or one of its dependencies changed since. */
+record CachedSource(
+  byte[] hash,
+  ResolvedSource resolution,
+  Optional<Semantic.Source> source,
+  Map<String, Semantic.Source> dependencies)
+{
+  /** Returns this source without the checked source. */
+  CachedSource unchecked() {
+    return new CachedSource(hash, resolution, Optional.empty(), Map.of());
+  }
+}
@@ -0,0 +1,105 @@
+package hlml.checker;
+
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/** Finds the names of the definitions a checked construct needs before it can
+ * be understood. Walks the construct once, collecting the names into a single
+ * set. */
+final class DependencyCollector {
+  /** Returns the dependencies of a definition. */
+  static Set<Name> collect(Semantic.Definition definition) {
+    DependencyCollector collector = new DependencyCollector();
+    switch (definition) {
+      case Semantic.Using d -> collector.dependencies.add(d.aliased().name());
+      case Semantic.UserDefinedProcedure d ->
+        collector.collect_statement(d.body());
+      case Semantic.GlobalVar d ->
+        collector.collect_expression(d.initial_value());
+      default -> {}
+    }
+    return collector.dependencies;
+  }
+
+  /** Returns the dependencies of an entrypoint. */
+  static Set<Name> collect(Semantic.Entrypoint entrypoint) {
+    DependencyCollector collector = new DependencyCollector();
+    collector.collect_statement(entrypoint.body());
+    return collector.dependencies;
+  }
+
+  /** Names that were collected. */
+  private final Set<Name> dependencies;
+
+  /** Constructor. */
+  private DependencyCollector() {
+    dependencies = new LinkedHashSet<>();
+  }
+
+  /** Collects the dependencies of a statement if it is there. */
+  private void collect_statement(Optional<Semantic.Statement> statement) {
+    statement.ifPresent(this::collect_statement);
+  }
+
+  /** Collects the dependencies of a statement. */
+  private void collect_statement(Semantic.Statement statement) {
+    switch (statement) {
+      case Semantic.Block s -> {
+        for (Semantic.Statement i : s.inner_statements()) {
+          collect_statement(i);
+        }
+      }
+      case Semantic.If s -> {
+        for (Semantic.LocalVar v : s.variables()) { collect_statement(v); }
+        collect_expression(s.condition());
+        collect_statement(s.true_branch());
+        collect_statement(s.false_branch());
+      }
+      case Semantic.While s -> {
+        for (Semantic.LocalVar v : s.variables()) { collect_statement(v); }
+        collect_expression(s.condition());
+        collect_statement(s.interleaved());
+        collect_statement(s.loop());
+      }
+      case Semantic.Break s -> {}
+      case Semantic.Continue s -> {}
+      case Semantic.Return s -> collect_expression(s.value());
+      case Semantic.LocalVar s -> collect_expression(s.initial_value());
+      case Semantic.Mutate s -> collect_expression(s.target());
+      case Semantic.Assign s -> {
+        collect_expression(s.target());
+        collect_expression(s.source());
+      }
+      case Semantic.Discard s -> collect_expression(s.source());
+    }
+  }
+
+  /** Collects the dependencies of an expression if it is there. */
+  private void collect_expression(Optional<Semantic.Expression> expression) {
+    expression.ifPresent(this::collect_expression);
+  }
+
+  /** Collects the dependencies of an expression. */
+  private void collect_expression(Semantic.Expression expression) {
+    switch (expression) {
+      case Semantic.UnaryOperation e -> collect_expression(e.operand());
+      case Semantic.BinaryOperation e -> {
+        collect_expression(e.left_operand());
+        collect_expression(e.right_operand());
+      }
+      case Semantic.MemberAccess e -> {
+        collect_expression(e.object());
+        collect_expression(e.member());
+      }
+      case Semantic.GlobalVariableAccess e -> dependencies.add(e.name());
+      case Semantic.Call e -> {
+        dependencies.add(e.procedure());
+        for (Semantic.Expression a : e.arguments()) { collect_expression(a); }
+      }
+      case Semantic.Known e -> {}
+      case Semantic.LinkAccess e -> {}
+      case Semantic.LocalVariableAccess e -> {}
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package hlml.checker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Dependencies between the definitions in a target. Each definition, and the
+ * target's entrypoint, is a node identified by an index, and the dependencies
+ * of the nodes are packed into a single array. Nodes are ordered such that a
+ * node comes after the node it was first found as a dependency of, with the
+ * target's entrypoint coming first if there is one. */
+public final class DependencyGraph {
+  /** Builds the graph of the given sources, starting from the entrypoint of
+   * the target with the given name. */
+  static DependencyGraph create(
+    String target_name,
+    Map<String, Semantic.Source> sources)
+  {
+    List<Name> names = new ArrayList<>();
+    Map<Name, Integer> indices = new HashMap<>();
+    Name entrypoint = new Name(target_name, "entrypoint");
+    boolean has_entrypoint =
+      sources.get(target_name).entrypoint().isPresent();
+    if (has_entrypoint) {
+      indices.put(entrypoint, 0);
+      names.add(entrypoint);
+    }
+    for (Map.Entry<String, Semantic.Source> source : sources.entrySet()) {
+      for (String identifier : source.getValue().dependencies().keySet()) {
+        Name name = new Name(source.getKey(), identifier);
+        if (name.equals(entrypoint) || indices.containsKey(name)) { continue; }
+        indices.put(name, names.size());
+        names.add(name);
+      }
+    }
+    int[] offsets = new int[names.size() + 1];
+    List<Integer> edges = new ArrayList<>();
+    for (int node = 0; node < names.size(); node++) {
+      offsets[node] = edges.size();
+      Name name = names.get(node);
+      Semantic.Source source = sources.get(name.source());
+      Set<Name> dependencies =
+        source == null
+          ? Set.of()
+          : source.dependencies().getOrDefault(name.identifier(), Set.of());
+      for (Name dependency : dependencies) {
+        Integer index = indices.get(dependency);
+        if (index == null) {
+          index = names.size();
+          indices.put(dependency, index);
+          names.add(dependency);
+          offsets = Arrays.copyOf(offsets, names.size() + 1);
+        }
+        edges.add(index);
+      }
+    }
+    offsets[names.size()] = edges.size();
+    return new DependencyGraph(
+      names.toArray(Name[]::new),
+      Map.copyOf(indices),
+      offsets,
+      edges.stream().mapToInt(Integer::intValue).toArray(),
+      has_entrypoint ? 0 : -1);
+  }
+
+  /** Names of the nodes by their index. */
+  private final Name[] names;
+
+  /** Indices of the nodes by their name. */
+  private final Map<Name, Integer> indices;
+
+  /** Index of the first dependency of each node in the edges. Has one more
+   * element than the nodes, which is the number of edges. */
+  private final int[] offsets;
+
+  /** Indices of the dependencies of all the nodes one after another. */
+  private final int[] edges;
+
+  /** Index of the target's entrypoint, or -1 if there is none. */
+  private final int entrypoint;
+
+  /** Constructor. */
+  private DependencyGraph(
+    Name[] names,
+    Map<Name, Integer> indices,
+    int[] offsets,
+    int[] edges,
+    int entrypoint)
+  {
+    this.names = names;
+    this.indices = indices;
+    this.offsets = offsets;
+    this.edges = edges;
+    this.entrypoint = entrypoint;
+  }
+
+  /** Returns the number of nodes. */
+  public int size() {
+    return names.length;
+  }
+
+  /** Returns the index of the target's entrypoint, or -1 if there is none. */
+  public int entrypoint() {
+    return entrypoint;
+  }
+
+  /** Returns the name of the node at the given index. */
+  public Name name(int node) {
+    return names[node];
+  }
+
+  /** Returns the index of the node with the given name, or -1 if it is not in
+   * the graph. */
+  public int index_of(Name name) {
+    return indices.getOrDefault(name, -1);
+  }
+
+  /** Returns the number of dependencies of the node at the given index. */
+  public int dependency_count(int node) {
+    return offsets[node + 1] - offsets[node];
+  }
+
+  /** Returns the index of a dependency of the node at the given index. */
+  public int dependency(int node, int dependency) {
+    return edges[offsets[node] + dependency];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder string = new StringBuilder();
+    string.append('{');
+    for (int node = 0; node < names.length; node++) {
+      if (node != 0) { string.append(", "); }
+      string.append(names[node]);
+      string.append("=[");
+      for (int i = 0; i < dependency_count(node); i++) {
+        if (i != 0) { string.append(", "); }
+        string.append(names[dependency(node, i)]);
+      }
+      string.append(']');
+    }
+    string.append('}');
+    return string.toString();
+  }
+}
@@ -0,0 +1,22 @@
+package hlml.checker;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recording of looking for the file of a source. */
+@Name("hlml.FindSource")
+@Label("Find Source")
+@Category({"HLML", "Compiler"})
+@Description("Looking for the file of a source in the include directories.")
+final class FindSourceEvent extends Event {
+  /** Name of the source that is looked for. */
+  @Label("Source")
+  String source;
+
+  /** Path to the file that was found, or nothing if it was not found. */
+  @Label("File")
+  String file;
+}
@@ -0,0 +1,14 @@
+package hlml.checker;
+
+/** Thrown when a construct uses a symbol that could not be checked. Stops
+ * checking the construct without reporting anything, as the problem with the
+ * symbol was already reported. Does not record a stack trace. */
+final class Poison extends RuntimeException {
+  /** Version of the serialized form. */
+  private static final long serialVersionUID = 1L;
+
+  /** Constructs. */
+  Poison() {
+    super(null, null, false, false);
+  }
+}
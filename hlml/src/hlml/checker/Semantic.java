@@ -11,26 +11,26 @@ public sealed interface Semantic {
   String built_in_scope = "mlog";
 
   /** Collective understanding of a piece of code. */
-  record Target(String name, Map<String, Source> sources) implements Semantic {}
+  record Target(
+    String name,
+    Map<String, Source> sources,
+    DependencyGraph dependencies) implements Semantic
+  {}
 
-  /** Files that hold the code. */
+  /** Files that hold the code. Dependencies are the globals used by each
+   * global and by the entrypoint, which is under the identifier
+   * `entrypoint`. */
   record Source(
     Optional<Entrypoint> entrypoint,
-    Map<String, Definition> globals) implements Semantic
+    Map<String, Definition> globals,
+    Map<String, Set<Name>> dependencies) implements Semantic
   {}
 
   /** Asserting a fact about the program. */
-  sealed interface Declaration extends Semantic {
-    /** Returns the names of definitions this entity needs before it can be
-     * understood. */
-    Set<Name> dependencies();
-  }
+  sealed interface Declaration extends Semantic {}
 
   /** First instructions that are executed by the processor. */
-  record Entrypoint(Statement body) implements Declaration {
-    @Override
-    public Set<Name> dependencies() { return body.dependencies(); }
-  }
+  record Entrypoint(Statement body) implements Declaration {}
 
   /** Definition of a construct in code. */
   sealed interface Definition extends Declaration {
@@ -51,26 +51,17 @@ public sealed interface Semantic {
 
     @Override
     default Name name() { return new Name("mlog", identifier()); }
-
-    @Override
-    default Set<Name> dependencies() { return Set.of(); }
   }
 
   /** Defining a symbol as building linked to the processor. */
   record Link(boolean visible, Name name, String building)
     implements Definition
-  {
-    @Override
-    public Set<Name> dependencies() { return Set.of(); }
-  }
+  {}
 
   /** Defining a symbol as an alias to another one. */
   record Using(boolean visible, Name name, Definition aliased)
     implements Definition
-  {
-    @Override
-    public Set<Name> dependencies() { return aliased.dependencies(); }
-  }
+  {}
 
   /** Definition of a procedure that could be built-in or user-defined. */
   sealed interface Procedure extends Definition {
@@ -87,9 +78,6 @@ public sealed interface Semantic {
   {
     @Override
     public int parameter_count() { return parameters.size(); }
-
-    @Override
-    public Set<Name> dependencies() { return body.dependencies(); }
   }
 
   /** Definition of a procedure's parameter. */
@@ -120,10 +108,7 @@ public sealed interface Semantic {
   /** Constants that are defined by the user. */
   record UserDefinedConstant(boolean visible, Name name, Known value)
     implements Constant
-  {
-    @Override
-    public Set<Name> dependencies() { return Set.of(); }
-  }
+  {}
 
   /** Constants that directly map to a processor keyword. */
   record BuiltinKeyword(KnownKeyword value) implements Builtin, Constant {
@@ -141,27 +126,13 @@ public sealed interface Semantic {
     boolean visible,
     Name name,
     Optional<Expression> initial_value) implements Definition
-  {
-    @Override
-    public Set<Name> dependencies() {
-      return initial_value.map(Expression::dependencies).orElseGet(Set::of);
-    }
-  }
+  {}
 
   /** Instructions to be executed by the processor. */
-  sealed interface Statement extends Semantic {
-    /** Returns the names of definitions this entity needs before it can be
-     * understood. */
-    Set<Name> dependencies();
-  }
+  sealed interface Statement extends Semantic {}
 
   /** Statements that are sequentially executed. */
-  record Block(List<Statement> inner_statements) implements Statement {
-    @Override
-    public Set<Name> dependencies() {
-      return Sets.union(inner_statements.stream().map(Statement::dependencies));
-    }
-  }
+  record Block(List<Statement> inner_statements) implements Statement {}
 
   /** Statements that branch the control flow. */
   record If(
@@ -169,17 +140,7 @@ public sealed interface Semantic {
     Expression condition,
     Statement true_branch,
     Optional<Statement> false_branch) implements Statement
-  {
-    @Override
-    public Set<Name> dependencies() {
-      return Sets
-        .union(
-          Sets.union(variables.stream().map(LocalVar::dependencies)),
-          condition.dependencies(),
-          true_branch.dependencies(),
-          false_branch.map(Statement::dependencies).orElseGet(Set::of));
-    }
-  }
+  {}
 
   /** Statements that loop the control flow. */
   record While(
@@ -187,47 +148,21 @@ public sealed interface Semantic {
     Expression condition,
     Optional<Statement> interleaved,
     Statement loop) implements Statement
-  {
-    @Override
-    public Set<Name> dependencies() {
-      return Sets
-        .union(
-          Sets.union(variables.stream().map(LocalVar::dependencies)),
-          condition.dependencies(),
-          interleaved.map(Statement::dependencies).orElseGet(Set::of),
-          loop.dependencies());
-    }
-  }
+  {}
 
   /** Statements that exit a loop. */
-  record Break(int loop) implements Statement {
-    @Override
-    public Set<Name> dependencies() { return Set.of(); }
-  }
+  record Break(int loop) implements Statement {}
 
   /** Statements that skip the remaining in a loop. */
-  record Continue(int loop) implements Statement {
-    @Override
-    public Set<Name> dependencies() { return Set.of(); }
-  }
+  record Continue(int loop) implements Statement {}
 
   /** Statements that provide a value to the procedures caller. */
-  record Return(Optional<Expression> value) implements Statement {
-    @Override
-    public Set<Name> dependencies() {
-      return value.map(Expression::dependencies).orElseGet(Set::of);
-    }
-  }
+  record Return(Optional<Expression> value) implements Statement {}
 
   /** Definition of a local variable. */
   record LocalVar(String identifier, Optional<Expression> initial_value)
     implements Statement
-  {
-    @Override
-    public Set<Name> dependencies() {
-      return initial_value.map(Expression::dependencies).orElseGet(Set::of);
-    }
-  }
+  {}
 
   /** Statements that affect the processors context. Useful for parsing as all
    * the initial tokens of these statements are same as expressions. */
@@ -237,9 +172,6 @@ public sealed interface Semantic {
   sealed interface Mutate extends Affect {
     /** The mutated variable. */
     VariableAccess target();
-
-    @Override
-    default Set<Name> dependencies() { return target().dependencies(); }
   }
 
   /** Statements that increment the value hold in a variable. */
@@ -255,11 +187,6 @@ public sealed interface Semantic {
 
     /** The new value or the right operand. */
     Expression source();
-
-    @Override
-    default Set<Name> dependencies() {
-      return Sets.union(target().dependencies(), source().dependencies());
-    }
   }
 
   /** Statements that set the target to be the same as the source. */
@@ -335,25 +262,15 @@ public sealed interface Semantic {
 
   /** Statements that evaluate an expression and discard its value. Useful for
    * side effects, not the value. */
-  record Discard(Expression source) implements Affect {
-    @Override
-    public Set<Name> dependencies() { return source.dependencies(); }
-  }
+  record Discard(Expression source) implements Affect {}
 
   /** Value calculations to be evaluated by the processor. */
-  sealed interface Expression extends Semantic {
-    /** Returns the names of definitions this entity needs before it can be
-     * understood. */
-    Set<Name> dependencies();
-  }
+  sealed interface Expression extends Semantic {}
 
   /** Expression made up of one operand and an operator at the left. */
   sealed interface UnaryOperation extends Expression {
     /** Operand of the operator. */
     Expression operand();
-
-    @Override
-    default Set<Name> dependencies() { return operand().dependencies(); }
   }
 
   /** Expression made up of two operands and an operator in the middle. */
@@ -363,12 +280,6 @@ public sealed interface Semantic {
 
     /** Operand that is at the right of the operator. */
     Expression right_operand();
-
-    @Override
-    default Set<Name> dependencies() {
-      return Sets
-        .union(left_operand().dependencies(), right_operand().dependencies());
-    }
   }
 
   /** Expression that yields one if the left operand is not zero. Otherwise,
@@ -507,21 +418,13 @@ public sealed interface Semantic {
   /** Expression that senses a property of an object. */
   record MemberAccess(Expression object, Expression member)
     implements Expression
-  {
-    @Override
-    public Set<Name> dependencies() {
-      return Sets.union(object.dependencies(), member.dependencies());
-    }
-  }
+  {}
 
   /** Expression that evaluates to the value held by a symbol. */
   sealed interface SymbolAccess extends Expression {}
 
   /** Expression that has a known value. */
-  sealed interface Known extends SymbolAccess {
-    @Override
-    default Set<Name> dependencies() { return Set.of(); }
-  }
+  sealed interface Known extends SymbolAccess {}
 
   /** Known with a numeric value. */
   sealed interface KnownNumeric extends Known {
@@ -576,37 +479,20 @@ public sealed interface Semantic {
   record KnownString(String value) implements Known {}
 
   /** Expression that evaluates to a link. */
-  record LinkAccess(String building) implements SymbolAccess {
-    @Override
-    public Set<Name> dependencies() { return Set.of(); }
-  }
+  record LinkAccess(String building) implements SymbolAccess {}
 
   /** Expression that evaluates to the value held by a variable. */
   sealed interface VariableAccess extends SymbolAccess {}
 
   /** Expression that evaluates to a global variable's value. */
-  record GlobalVariableAccess(Name name) implements VariableAccess {
-    @Override
-    public Set<Name> dependencies() { return Set.of(name); }
-  }
+  record GlobalVariableAccess(Name name) implements VariableAccess {}
 
   /** Expression that evaluates to a local variable's value. */
-  record LocalVariableAccess(String identifier) implements VariableAccess {
-    @Override
-    public Set<Name> dependencies() { return Set.of(); }
-  }
+  record LocalVariableAccess(String identifier) implements VariableAccess {}
 
   /** Expression that evaluates to the return value of executing a procedure
    * with a given argument list. */
   record Call(Name procedure, List<Expression> arguments)
     implements Expression
-  {
-    @Override
-    public Set<Name> dependencies() {
-      return Sets
-        .union(
-          Set.of(procedure),
-          Sets.union(arguments.stream().map(Expression::dependencies)));
-    }
-  }
+  {}
 }
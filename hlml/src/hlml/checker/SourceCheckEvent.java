@@ -0,0 +1,32 @@
+package hlml.checker;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recording of checking the semantics of a source. */
+@Name("hlml.SourceCheck")
+@Label("Source Check")
+@Category({"HLML", "Compiler"})
+@Description("Checking the semantics of a resolved source.")
+final class SourceCheckEvent extends Event {
+  /** Name of the checked source. */
+  @Label("Source")
+  String source;
+
+  /** Size of the contents of the source in UTF-8. */
+  @Label("Size")
+  @DataAmount
+  long bytes;
+
+  /** Number of tokens in the source. */
+  @Label("Tokens")
+  long tokens;
+
+  /** Number of global definitions that were checked. */
+  @Label("Definitions")
+  long definitions;
+}
@@ -1,5 +1,6 @@
 package hlml.checker;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -13,14 +14,30 @@ import java.util.function.DoubleUnaryOperator;
 import hlml.checker.Semantic.Expression;
 import hlml.lexer.Token;
 import hlml.parser.Node;
+import hlml.reporter.DiagnosticException;
+import hlml.reporter.Reporter;
 import hlml.resolver.ResolvedSource;
 
 /** Checks a source. */
 final class SourceChecker {
   /** Checks a source. */
-  static Semantic.Source check(ResolvedSource source, GlobalFinder finder) {
-    SourceChecker checker = new SourceChecker(source, finder);
-    return checker.check();
+  static Semantic.Source check(
+    ResolvedSource source,
+    GlobalFinder finder,
+    Reporter reporter)
+  {
+    SourceCheckEvent event = new SourceCheckEvent();
+    event.begin();
+    SourceChecker checker = new SourceChecker(source, finder, reporter);
+    Semantic.Source checked = checker.check();
+    if (event.shouldCommit()) {
+      event.source = source.name();
+      event.bytes = source.contents.getBytes(StandardCharsets.UTF_8).length;
+      event.tokens = source.token_stream.size();
+      event.definitions = checked.globals().size();
+      event.commit();
+    }
+    return checked;
   }
 
   /** Checked source. */
@@ -29,26 +46,38 @@ final class SourceChecker {
   /** Global finder. */
   private final GlobalFinder finder;
 
+  /** Collector of the problems in the source. */
+  private final Reporter reporter;
+
   /** Global symbols that were checked. */
   private Map<String, Semantic.Definition> globals;
 
   /** Global symbols that are being checked. */
   private Set<String> currently_checked;
 
+  /** Global symbols that could not be checked. */
+  private Set<String> poisoned;
+
   /** Representative text of the currently checked global entity. Used for
    * reporting locals with a namespace under the representative. */
   private String representative;
 
   /** Constructor. */
-  private SourceChecker(ResolvedSource source, GlobalFinder finder) {
+  private SourceChecker(
+    ResolvedSource source,
+    GlobalFinder finder,
+    Reporter reporter)
+  {
     this.source = source;
     this.finder = finder;
+    this.reporter = reporter;
   }
 
   /** Check the source. */
   private Semantic.Source check() {
     globals = new HashMap<>();
     currently_checked = new HashSet<>();
+    poisoned = new HashSet<>();
     Optional<Semantic.Entrypoint> entrypoint = Optional.empty();
     if (source.entrypoint.isPresent()) {
       Node.Entrypoint node = source.entrypoint.get();
@@ -58,9 +87,21 @@ final class SourceChecker {
       entrypoint = Optional.of(new Semantic.Entrypoint(body));
     }
     for (String identifier : source.globals.keySet()) {
-      find_global(identifier);
+      try {
+        find_global(identifier);
+      }
+      catch (Poison cause) {}
+    }
+    Map<String, Set<Name>> dependencies = new HashMap<>();
+    if (entrypoint.isPresent()) {
+      dependencies
+        .put("entrypoint", DependencyCollector.collect(entrypoint.get()));
     }
-    return new Semantic.Source(entrypoint, globals);
+    for (Map.Entry<String, Semantic.Definition> global : globals.entrySet()) {
+      dependencies
+        .put(global.getKey(), DependencyCollector.collect(global.getValue()));
+    }
+    return new Semantic.Source(entrypoint, globals, dependencies);
   }
 
   /** Checks a mention. */
@@ -79,6 +120,7 @@ final class SourceChecker {
   private Semantic.Definition check_identifier(Token.Identifier identifier) {
     Optional<Semantic.Definition> global = find_global(identifier.text());
     if (!global.isPresent()) {
+      if (!source.diagnostics.isEmpty()) { throw new Poison(); }
       throw source
         .subject(identifier)
         .to_diagnostic(
@@ -100,6 +142,7 @@ final class SourceChecker {
       return Optional.of(globals.get(identifier));
     }
     if (!source.globals.containsKey(identifier)) { return Optional.empty(); }
+    if (poisoned.contains(identifier)) { throw new Poison(); }
     Node.Definition node = source.globals.get(identifier);
     if (currently_checked.contains(identifier)) {
       throw source
@@ -114,7 +157,33 @@ final class SourceChecker {
     currently_checked.add(identifier);
     String old_representative = representative;
     representative = source.representative_text(node);
-    Semantic.Definition definition = switch (node) {
+    Semantic.Definition definition;
+    try {
+      definition = check_definition(identifier, node);
+    }
+    catch (DiagnosticException cause) {
+      reporter.report(cause.diagnostic);
+      poisoned.add(identifier);
+      throw new Poison();
+    }
+    catch (Poison cause) {
+      poisoned.add(identifier);
+      throw cause;
+    }
+    finally {
+      representative = old_representative;
+      currently_checked.remove(identifier);
+    }
+    globals.put(identifier, definition);
+    return Optional.of(definition);
+  }
+
+  /** Checks a global definition. */
+  private Semantic.Definition check_definition(
+    String identifier,
+    Node.Definition node)
+  {
+    return switch (node) {
       case Node.Link d ->
         new Semantic.Link(
           node.modifier().isPresent(),
@@ -178,10 +247,6 @@ final class SourceChecker {
           initial_value);
       }
     };
-    representative = old_representative;
-    globals.put(identifier, definition);
-    currently_checked.remove(identifier);
-    return Optional.of(definition);
   }
 
   /** Checks a statement. */
@@ -195,7 +260,16 @@ final class SourceChecker {
         Scope inner_scope = scope.create_child();
         List<Semantic.Statement> inner_statements = new ArrayList<>();
         for (Node.Statement i : block.inner_statements()) {
-          inner_statements.add(check_statement(inner_scope, loops, i));
+          try {
+            inner_statements.add(check_statement(inner_scope, loops, i));
+          }
+          catch (DiagnosticException cause) {
+            reporter.report(cause.diagnostic);
+            poison_local(inner_scope, i);
+          }
+          catch (Poison cause) {
+            poison_local(inner_scope, i);
+          }
         }
         yield new Semantic.Block(inner_statements);
       }
@@ -352,6 +426,15 @@ final class SourceChecker {
     };
   }
 
+  /** Introduces the local variable of a statement that could not be checked
+   * without an initial value, such that its uses are not reported. */
+  private void poison_local(Scope scope, Node.Statement node) {
+    if (!(node instanceof Node.LocalVar local)) { return; }
+    String identifier = local.identifier().text();
+    if (scope.find(identifier).isPresent()) { return; }
+    scope.introduce(new Semantic.LocalVar(identifier, Optional.empty()));
+  }
+
   /** Checks inner variables of a statement. */
   private List<Semantic.LocalVar> check_variables(
     Scope scope,
@@ -0,0 +1,24 @@
+package hlml.compiler;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import hlml.reporter.Diagnostic;
+
+/** Result of compiling a target in memory. Holds the instructions encoded in
+ * UTF-8 if the target could be built, and the problems found in its sources in
+ * the order they were reported. */
+public record Compilation(
+  Optional<ByteBuffer> program,
+  List<Diagnostic> diagnostics)
+{
+  /** Returns whether the target was built. */
+  public boolean succeeded() { return program.isPresent(); }
+
+  /** Returns the instructions as text if the target was built. */
+  public Optional<CharSequence> text() {
+    return program.map(p -> StandardCharsets.UTF_8.decode(p.duplicate()));
+  }
+}
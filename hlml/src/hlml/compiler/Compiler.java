@@ -0,0 +1,86 @@
+package hlml.compiler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import hlml.builder.Builder;
+import hlml.checker.Cache;
+import hlml.checker.Checker;
+import hlml.checker.Semantic;
+import hlml.loader.SourceProvider;
+import hlml.reporter.Diagnostic;
+import hlml.reporter.DiagnosticException;
+import hlml.reporter.Reporter;
+import hlml.reporter.Subject;
+
+/** Compiles targets whose sources are given in memory, without reading or
+ * writing any files. Remembers the sources it checked, so the sources that did
+ * not change are not checked again by the later compilations. Compilations
+ * through the same compiler run one at a time. */
+public final class Compiler {
+  /** Returns a compiler that did not check any sources yet. */
+  public static Compiler create() {
+    return new Compiler(Cache.create());
+  }
+
+  /** Sources that were checked by the previous compilations. */
+  private final Cache cache;
+
+  /** Constructor. */
+  private Compiler(Cache cache) { this.cache = cache; }
+
+  /** Compiles the source with the given name, where the contents of the
+   * sources are given by their names. Ends the instructions with a line
+   * feed. */
+  public Compilation compile(
+    Map<String, ? extends CharSequence> sources,
+    String name)
+  {
+    return compile(sources, name, Reporter.default_error_limit, "\n");
+  }
+
+  /** Compiles the source with the given name, where the contents of the
+   * sources are given by their names. Stops after the given number of errors
+   * and ends the instructions with the given line separator. */
+  public synchronized Compilation compile(
+    Map<String, ? extends CharSequence> sources,
+    String name,
+    int error_limit,
+    String line_separator)
+  {
+    Subject subject = Subject.of("compiler");
+    Reporter reporter = Reporter.create(error_limit);
+    try {
+      Semantic.Target target =
+        Checker
+          .check(
+            subject,
+            SourceProvider.of(sources),
+            name,
+            new Checker.Options(
+              cache,
+              reporter,
+              Optional.empty(),
+              Optional.empty()));
+      ByteBuffer program =
+        Builder
+          .build(
+            subject,
+            target,
+            new Builder.Options(line_separator, Optional.empty()));
+      return new Compilation(Optional.of(program), reporter.diagnostics());
+    }
+    catch (DiagnosticException cause) {
+      List<Diagnostic> diagnostics = new ArrayList<>(reporter.diagnostics());
+      diagnostics.add(cause.diagnostic);
+      return new Compilation(Optional.empty(), List.copyOf(diagnostics));
+    }
+    catch (RuntimeException cause) {
+      if (!reporter.has_errors()) { throw cause; }
+      return new Compilation(Optional.empty(), reporter.diagnostics());
+    }
+  }
+}
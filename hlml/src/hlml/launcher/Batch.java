@@ -0,0 +1,61 @@
+package hlml.launcher;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import hlml.checker.Cache;
+
+/** Compilations of many targets that are requested together. The targets are
+ * independent of each other, so they are compiled in parallel while sharing
+ * the sources they check. */
+record Batch(List<Request> requests) {
+  /** Reads a batch that was written by {@link #write_to(DataOutput)}. */
+  static Batch read_from(DataInput input) throws IOException {
+    int request_count = input.readInt();
+    List<Request> requests = new ArrayList<>();
+    for (int i = 0; i < request_count; i++) {
+      requests.add(Request.read_from(input));
+    }
+    return new Batch(requests);
+  }
+
+  /** Writes the batch such that it can be read by
+   * {@link #read_from(DataInput)}. */
+  void write_to(DataOutput output) throws IOException {
+    output.writeInt(requests.size());
+    for (Request request : requests) { request.write_to(output); }
+  }
+
+  /** Compiles the targets on a work-stealing pool by reusing the sources in
+   * the given cache. Returns the responses in the order of the requests. */
+  List<Response> compile(Cache cache) {
+    if (requests.size() == 1) {
+      return List.of(requests.get(0).compile(cache));
+    }
+    List<Future<Response>> compilations = new ArrayList<>();
+    try (ExecutorService pool = Executors.newWorkStealingPool()) {
+      for (Request request : requests) {
+        compilations.add(pool.submit(() -> request.compile(cache)));
+      }
+      List<Response> responses = new ArrayList<>();
+      for (Future<Response> compilation : compilations) {
+        responses.add(compilation.get());
+      }
+      return responses;
+    }
+    catch (ExecutionException cause) {
+      throw new IllegalStateException(cause.getCause());
+    }
+    catch (InterruptedException cause) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(cause);
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package hlml.launcher;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import com.sun.management.ThreadMXBean;
+
+/** Measures the average time an operation takes by running it repeatedly on
+ * the current thread. First runs warmup iterations, whose results are
+ * discarded, so the measured code is compiled by the JVM. Then runs the
+ * measured iterations, and records the bytes allocated and the garbage
+ * collections that happened during them. */
+final class Benchmark {
+  /** Measures an operation. Each iteration runs the operation until at least
+   * the given number of nanoseconds pass. */
+  static Measurement measure(
+    String name,
+    Supplier<Object> operation,
+    int warmup_iterations,
+    int measured_iterations,
+    long iteration_time)
+  {
+    Benchmark benchmark =
+      new Benchmark(
+        name,
+        operation,
+        warmup_iterations,
+        measured_iterations,
+        iteration_time);
+    return benchmark.measure();
+  }
+
+  /** Last combination of the results of an operation, which is kept such
+   * that the JVM cannot skip computing them. */
+  private static volatile int consumed;
+
+  /** Name of the measured operation. */
+  private final String name;
+
+  /** Measured operation. */
+  private final Supplier<Object> operation;
+
+  /** Number of iterations that are run before measuring. */
+  private final int warmup_iterations;
+
+  /** Number of iterations that are measured. */
+  private final int measured_iterations;
+
+  /** Minimum duration of an iteration in nanoseconds. */
+  private final long iteration_time;
+
+  /** Combination of the results of the operation. */
+  private int sink;
+
+  /** Constructor. */
+  private Benchmark(
+    String name,
+    Supplier<Object> operation,
+    int warmup_iterations,
+    int measured_iterations,
+    long iteration_time)
+  {
+    this.name = name;
+    this.operation = operation;
+    this.warmup_iterations = warmup_iterations;
+    this.measured_iterations = measured_iterations;
+    this.iteration_time = iteration_time;
+  }
+
+  /** Measures the operation. */
+  private Measurement measure() {
+    for (int i = 0; i < warmup_iterations; i++) { iterate(); }
+    System.gc();
+    long gc_count = -gc_count();
+    long gc_time = -gc_time();
+    List<Double> times = new ArrayList<>();
+    long operations = 0;
+    long allocated = -allocated_bytes();
+    for (int i = 0; i < measured_iterations; i++) {
+      long start = System.nanoTime();
+      long iteration_operations = iterate();
+      long time = System.nanoTime() - start;
+      times.add((double) time / iteration_operations);
+      operations += iteration_operations;
+    }
+    allocated += allocated_bytes();
+    gc_count += gc_count();
+    gc_time += gc_time();
+    consumed = sink;
+    return new Measurement(
+      name,
+      times,
+      (double) allocated / operations,
+      gc_count,
+      gc_time);
+  }
+
+  /** Runs the operation until the iteration time passes. Returns the number
+   * of times it was run. */
+  private long iterate() {
+    long start = System.nanoTime();
+    long operations = 0;
+    do {
+      sink += System.identityHashCode(operation.get());
+      operations++;
+    }
+    while (System.nanoTime() - start < iteration_time);
+    return operations;
+  }
+
+  /** Returns the total bytes allocated by the live threads so far. Includes
+   * the threads that run the virtual threads started by the operation. */
+  private static long allocated_bytes() {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long allocated = 0;
+    for (long thread_allocated : threads
+      .getThreadAllocatedBytes(threads.getAllThreadIds()))
+    {
+      allocated += Math.max(0, thread_allocated);
+    }
+    return allocated;
+  }
+
+  /** Returns the total number of garbage collections so far. */
+  private static long gc_count() {
+    long count = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory
+      .getGarbageCollectorMXBeans())
+    {
+      count += Math.max(0, collector.getCollectionCount());
+    }
+    return count;
+  }
+
+  /** Returns the total milliseconds spent in garbage collection so far. */
+  private static long gc_time() {
+    long time = 0;
+    for (GarbageCollectorMXBean collector : ManagementFactory
+      .getGarbageCollectorMXBeans())
+    {
+      time += Math.max(0, collector.getCollectionTime());
+    }
+    return time;
+  }
+}
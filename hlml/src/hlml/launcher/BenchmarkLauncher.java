@@ -0,0 +1,232 @@
+package hlml.launcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import hlml.Source;
+import hlml.builder.Builder;
+import hlml.checker.Checker;
+import hlml.checker.Semantic;
+import hlml.lexer.LexedSource;
+import hlml.lexer.Lexer;
+import hlml.loader.LoadedSource;
+import hlml.loader.Loader;
+import hlml.loader.SourceProvider;
+import hlml.parser.Parser;
+import hlml.reporter.Subject;
+import hlml.resolver.Resolver;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/** Measures how long each phase of the compiler takes over the test sources
+ * and the standard library, which is the baseline performance changes are
+ * judged against. Can measure generated sources instead to see how the phases
+ * scale. Must be launched from the project directory. */
+@Command(
+  name = "hlml-benchmark",
+  description = "Measures the phases of the compiler.",
+  mixinStandardHelpOptions = true)
+final class BenchmarkLauncher implements Callable<Integer> {
+  /** Phase of the compiler that is measured. */
+  enum Phase {
+    load, lex, parse, resolve, check, build,
+  }
+
+  /** Launches after parsing commands. */
+  public static void main(String... arguments) {
+    System.exit(new CommandLine(new BenchmarkLauncher()).execute(arguments));
+  }
+
+  @Option(
+    names = "-o",
+    description = "File the results will be saved to as JSON.")
+  private Optional<Path> output_path;
+
+  @Option(
+    names = "--phase",
+    description = "A phase to measure, which are all of them if none is given: ${COMPLETION-CANDIDATES}.")
+  private List<Phase> phases;
+
+  @Option(
+    names = "--warmup",
+    description = "Number of iterations that are run before measuring.")
+  private int warmup_iterations = 5;
+
+  @Option(
+    names = "--iterations",
+    description = "Number of iterations that are measured.")
+  private int measured_iterations = 5;
+
+  @Option(
+    names = "--time",
+    description = "Milliseconds each iteration runs for.")
+  private long iteration_time = 1000;
+
+  @Option(
+    names = "--corpus",
+    description = "Directory of the sources to measure instead of the tests, such as the ones created by the generator.")
+  private Optional<Path> corpus;
+
+  /** Subject that is reported when the benchmarks fail. */
+  private final Subject subject = Subject.of("benchmark");
+
+  /** Directories the sources are looked for in. Targets are the sources in
+   * the first one. */
+  private List<Path> includes;
+
+  @Override
+  public Integer call() {
+    includes =
+      List
+        .of(
+          Path.of("tests", "executables"),
+          Path.of("tests", "libraries"),
+          Path.of("assets"));
+    if (corpus.isPresent()) {
+      includes = List.of(corpus.get(), Path.of("assets"));
+    }
+    Set<Phase> measured = EnumSet.allOf(Phase.class);
+    if (phases != null) { measured = EnumSet.copyOf(phases); }
+    List<Source> sources = new ArrayList<>();
+    for (Path include : includes) { sources.addAll(list_sources(include)); }
+    List<String> targets =
+      list_sources(includes.get(0)).stream().map(Source::name).toList();
+    List<LoadedSource> loaded_sources =
+      sources.stream().map(Loader::load).toList();
+    List<LexedSource> lexed_sources =
+      loaded_sources.stream().map(Lexer::lex).toList();
+    List<String> checked_targets = new ArrayList<>();
+    List<Semantic.Target> checked = new ArrayList<>();
+    for (String target : targets) {
+      try {
+        checked.add(check(target));
+        checked_targets.add(target);
+      }
+      catch (RuntimeException cause) {
+        System.err.println(cause.getMessage());
+      }
+    }
+    List<Semantic.Target> built = new ArrayList<>();
+    for (Semantic.Target target : checked) {
+      if (target.sources().get(target.name()).entrypoint().isPresent()) {
+        built.add(target);
+      }
+    }
+    System.out
+      .printf(
+        "Measuring %d sources, %d targets and %d programs.%n",
+        sources.size(),
+        checked_targets.size(),
+        built.size());
+    List<Measurement> measurements = new ArrayList<>();
+    for (Phase phase : measured) {
+      Supplier<Object> operation =
+        switch (phase) {
+          case load -> () -> each(sources, Loader::load);
+          case lex -> () -> each(loaded_sources, Lexer::lex);
+          case parse -> () -> each(lexed_sources, Parser::parse);
+          case resolve ->
+            () -> each(
+              loaded_sources,
+              s -> Resolver.resolve(s, Optional.empty()));
+          case check ->
+            () -> each(checked_targets, this::check);
+          case build ->
+            () -> each(
+              built,
+              t -> Builder
+                .build(
+                  subject,
+                  t,
+                  new Builder.Options("\n", Optional.empty())));
+        };
+      Measurement measurement =
+        Benchmark
+          .measure(
+            phase.name(),
+            operation,
+            warmup_iterations,
+            measured_iterations,
+            iteration_time * 1_000_000);
+      System.out
+        .printf(
+          "%-10s %14.0f +- %12.0f ns/op %14.0f B/op %6d GCs %6d ms%n",
+          measurement.name(),
+          measurement.score(),
+          measurement.deviation(),
+          measurement.allocated_bytes(),
+          measurement.gc_count(),
+          measurement.gc_time());
+      measurements.add(measurement);
+    }
+    if (output_path.isPresent()) {
+      StringBuilder json = new StringBuilder();
+      json.append('[');
+      for (int i = 0; i < measurements.size(); i++) {
+        if (i != 0) { json.append(','); }
+        json.append(System.lineSeparator());
+        json.append("  ");
+        measurements.get(i).append_json_to(json);
+      }
+      json.append(System.lineSeparator());
+      json.append(']');
+      json.append(System.lineSeparator());
+      try {
+        Files.writeString(output_path.get(), json);
+      }
+      catch (IOException cause) {
+        System.err.println(cause.getMessage());
+        return -1;
+      }
+    }
+    return 0;
+  }
+
+  /** Checks a target from scratch. */
+  private Semantic.Target check(String target) {
+    return Checker
+      .check(
+        subject,
+        SourceProvider.of(includes),
+        target,
+        Checker.Options.create());
+  }
+
+  /** Returns the sources in a directory in alphabetical order. */
+  private List<Source> list_sources(Path directory) {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+        .filter(f -> f.getFileName().toString().endsWith(Source.extension))
+        .sorted()
+        .map(Source::new)
+        .toList();
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(directory)
+        .to_diagnostic("failure", "Could not list the benchmarked sources!")
+        .to_exception(cause);
+    }
+  }
+
+  /** Runs a phase on each of the inputs. Returns a combination of the
+   * outputs, which is used such that the JVM cannot skip computing them. */
+  private static <I> Object each(List<I> inputs, Function<I, Object> phase) {
+    int outputs = 0;
+    for (I input : inputs) {
+      outputs += System.identityHashCode(phase.apply(input));
+    }
+    return outputs;
+  }
+}
@@ -0,0 +1,175 @@
+package hlml.launcher;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import hlml.checker.Cache;
+import hlml.reporter.Subject;
+
+/** Long running compiler that compiles the targets requested through a local
+ * socket. Keeps the checked sources between the compilations such that only
+ * the changed sources are checked again. Serves one connection at a time,
+ * while the targets of a batch are compiled in parallel. A connection that
+ * cannot be read or compiled gets a failed response, and the daemon keeps
+ * serving the next connections until it is asked to stop. */
+final class Daemon {
+  /** Kind of the message that requests the compilation of a batch. */
+  private static final byte compile_message = 0;
+
+  /** Kind of the message that requests the daemon to stop. */
+  private static final byte stop_message = 1;
+
+  /** Serves the requests that come to the given socket until it is asked to
+   * stop. */
+  static void serve(Path socket) {
+    Daemon daemon = new Daemon(socket);
+    daemon.serve();
+  }
+
+  /** Forwards a batch to the daemon serving at the given socket and returns
+   * its responses. */
+  static List<Response> forward(Path socket, Batch batch) {
+    return send(socket, compile_message, Optional.of(batch));
+  }
+
+  /** Asks the daemon serving at the given socket to stop and returns its
+   * response. */
+  static Response stop(Path socket) {
+    return send(socket, stop_message, Optional.empty()).get(0);
+  }
+
+  /** Sends a message to the daemon serving at the given socket and returns
+   * its responses. */
+  private static List<Response> send(
+    Path socket,
+    byte kind,
+    Optional<Batch> batch)
+  {
+    try (
+      SocketChannel channel =
+        SocketChannel.open(UnixDomainSocketAddress.of(socket)))
+    {
+      DataOutputStream output =
+        new DataOutputStream(Channels.newOutputStream(channel));
+      output.writeByte(kind);
+      if (batch.isPresent()) { batch.get().write_to(output); }
+      output.flush();
+      DataInputStream input =
+        new DataInputStream(Channels.newInputStream(channel));
+      int response_count = input.readInt();
+      List<Response> responses = new ArrayList<>();
+      for (int i = 0; i < response_count; i++) {
+        responses.add(Response.read_from(input));
+      }
+      return responses;
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(socket)
+        .to_diagnostic("failure", "Could not reach the daemon!")
+        .to_exception(cause);
+    }
+  }
+
+  /** Path to the socket file requests come from. */
+  private final Path socket;
+
+  /** Sources that were checked by the previous requests. */
+  private final Cache cache;
+
+  /** Constructor. */
+  private Daemon(Path socket) {
+    this.socket = socket;
+    cache = Cache.create();
+  }
+
+  /** Serves the requests. */
+  private void serve() {
+    try (
+      ServerSocketChannel server =
+        ServerSocketChannel.open(StandardProtocolFamily.UNIX))
+    {
+      Files.deleteIfExists(socket);
+      server.bind(UnixDomainSocketAddress.of(socket));
+      Runtime.getRuntime().addShutdownHook(new Thread(this::unlink));
+      boolean is_serving = true;
+      while (is_serving) {
+        try (SocketChannel channel = server.accept()) {
+          is_serving = respond(channel);
+        }
+        catch (IOException cause) {
+          System.err.println(cause.getMessage());
+        }
+      }
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(socket)
+        .to_diagnostic("failure", "Could not serve at the socket!")
+        .to_exception(cause);
+    }
+  }
+
+  /** Responds to the message that comes through a connection. Returns
+   * whether the daemon should keep serving. */
+  private boolean respond(SocketChannel channel) throws IOException {
+    DataInputStream input =
+      new DataInputStream(Channels.newInputStream(channel));
+    boolean is_serving = true;
+    List<Response> responses;
+    try {
+      byte kind = input.readByte();
+      switch (kind) {
+        case compile_message ->
+          responses = Batch.read_from(input).compile(cache);
+        case stop_message -> {
+          responses = List.of(new Response(0, "", ""));
+          is_serving = false;
+        }
+        default ->
+          throw Subject
+            .of(socket)
+            .to_diagnostic("failure", "Unknown message kind `%d`!", kind)
+            .to_exception();
+      }
+    }
+    catch (IOException | RuntimeException cause) {
+      responses =
+        List
+          .of(
+            Response
+              .failure(
+                Subject
+                  .of(socket)
+                  .to_diagnostic("failure", "Could not respond to a request!")
+                  .to_exception(cause)));
+    }
+    DataOutputStream output =
+      new DataOutputStream(Channels.newOutputStream(channel));
+    output.writeInt(responses.size());
+    for (Response response : responses) { response.write_to(output); }
+    output.flush();
+    return is_serving;
+  }
+
+  /** Removes the socket file. */
+  private void unlink() {
+    try {
+      Files.deleteIfExists(socket);
+    }
+    catch (IOException cause) {
+      System.err.println(cause.getMessage());
+    }
+  }
+}
@@ -4,14 +4,25 @@ import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.EnumSet;
 import java.util.Formatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
+import hlml.Recorder;
+import hlml.Representation;
 import hlml.Source;
 import hlml.builder.Builder;
+import hlml.checker.Cache;
 import hlml.checker.Checker;
 import hlml.checker.Semantic;
+import hlml.loader.SourceProvider;
+import hlml.reporter.DiagnosticException;
+import hlml.reporter.Reporter;
 import hlml.reporter.Subject;
 
 /** Holds the entrypoint to be used in development. */
@@ -21,10 +32,17 @@ final class DebugLauncher {
     build_executables, generate_builtin_variable_test,
   }
 
-  /** Entrypoint of the compiler. */
+  /** Entrypoint of the compiler. Prints the reported failures instead of
+   * their stack traces. */
   public static void main(String... arguments) {
     DebugLauncher launcher = new DebugLauncher();
-    launcher.launch(Option.build_executables);
+    try {
+      launcher.launch(Option.build_executables);
+    }
+    catch (RuntimeException cause) {
+      System.err.println(cause.getMessage());
+      System.exit(-1);
+    }
   }
 
   /** Subject that is reported when the launcher fails. */
@@ -45,6 +63,9 @@ final class DebugLauncher {
   /** Test include directories. */
   private final List<Path> includes;
 
+  /** Representations that are recorded to the test artifact directory. */
+  private final Set<Representation> recorded;
+
   /** Constructor. */
   private DebugLauncher() {
     subject = Subject.of("launcher");
@@ -53,7 +74,8 @@ final class DebugLauncher {
     executables = tests.resolve("executables");
     libraries = tests.resolve("libraries");
     includes =
-      List.of(Path.of("."), executables, libraries, Path.of("release"));
+      List.of(Path.of("."), executables, libraries, Path.of("assets"));
+    recorded = EnumSet.allOf(Representation.class);
   }
 
   private void launch(Option option) {
@@ -67,7 +89,7 @@ final class DebugLauncher {
     }
   }
 
-  /** Tests the compiler by building the executable tests. */
+  /** Tests the compiler by building the executable tests in parallel. */
   private void launch_tests() {
     try {
       Files.walkFileTree(artifacts, new Deletor());
@@ -80,31 +102,73 @@ final class DebugLauncher {
           artifacts.toAbsolutePath().normalize())
         .to_exception(cause);
     }
-    try {
-      Files
-        .list(executables)
-        .map(Path::getFileName)
-        .map(Path::toString)
-        .filter(n -> n.endsWith(Source.extension))
-        .map(n -> n.substring(0, n.length() - Source.extension.length()))
-        .forEach(this::launch_test);
+    List<String> names;
+    try (Stream<Path> files = Files.list(executables)) {
+      names =
+        files
+          .map(Path::getFileName)
+          .map(Path::toString)
+          .filter(n -> n.endsWith(Source.extension))
+          .map(n -> n.substring(0, n.length() - Source.extension.length()))
+          .toList();
     }
     catch (IOException cause) {
       throw subject
         .to_diagnostic("failure", "Could not list the executable tests!")
         .to_exception(cause);
     }
+    Cache cache = Cache.create();
+    Reporter reporter = Reporter.create(Reporter.default_error_limit);
+    try (
+      Recorder recorder = Recorder.create(artifacts, recorded);
+      ExecutorService pool = Executors.newWorkStealingPool())
+    {
+      for (String name : names) {
+        pool.execute(() -> launch_test(cache, recorder, reporter, name));
+      }
+    }
+    if (reporter.has_errors()) { throw reporter.to_exception(); }
   }
 
-  /** Builds an executable test. */
-  private void launch_test(String name) {
+  /** Builds an executable test by reusing the sources checked by the other
+   * tests. Reports the failure of the test to the given reporter. */
+  private void launch_test(
+    Cache cache,
+    Recorder recorder,
+    Reporter reporter,
+    String name)
+  {
     try {
       Semantic.Target target =
-        Checker.check(subject, includes, name, Optional.of(artifacts));
-      Builder.build(subject, artifacts.resolve(name + ".mlog"), target);
+        Checker
+          .check(
+            subject,
+            SourceProvider.of(includes),
+            name,
+            new Checker.Options(
+              cache,
+              Reporter.create(Reporter.default_error_limit),
+              Optional.of(recorder),
+              Optional.empty()));
+      Builder
+        .build(
+          subject,
+          artifacts.resolve(name + ".mlog"),
+          target,
+          Builder.Options.create());
+    }
+    catch (DiagnosticException cause) {
+      reporter.report(cause.diagnostic);
     }
-    catch (Throwable exception) {
-      exception.printStackTrace();
+    catch (RuntimeException cause) {
+      reporter
+        .report(
+          subject
+            .to_diagnostic(
+              "failure",
+              "Could not build the test `%s`!%n%s",
+              name,
+              cause.getMessage()));
     }
   }
 
@@ -0,0 +1,267 @@
+package hlml.launcher;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Formatter;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import hlml.Source;
+import hlml.reporter.Subject;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/** Generates large programs for measuring how the compiler scales. Creates a
+ * program source that calls all the procedures, which are spread over library
+ * sources that use the symbols of the libraries before them. Each procedure
+ * has a deeply nested expression and a long `if`/`else if` chain. The same
+ * parameters always generate the same sources. */
+@Command(
+  name = "hlml-generator",
+  description = "Generates large programs for benchmarking the compiler.",
+  mixinStandardHelpOptions = true)
+final class GeneratorLauncher implements Callable<Integer> {
+  /** Launches after parsing commands. */
+  public static void main(String... arguments) {
+    System.exit(new CommandLine(new GeneratorLauncher()).execute(arguments));
+  }
+
+  @Option(
+    names = "-d",
+    description = "Directory the generated sources will be saved to.")
+  private Path directory = Path.of("generated");
+
+  @Option(
+    names = "--libraries",
+    description = "Number of library sources.")
+  private int library_count = 4;
+
+  @Option(
+    names = "--imports",
+    description = "Number of the libraries before a library whose symbols it uses.")
+  private int import_width = 4;
+
+  @Option(names = "--procedures", description = "Number of procedures.")
+  private int procedure_count = 64;
+
+  @Option(names = "--globals", description = "Number of global variables.")
+  private int global_count = 32;
+
+  @Option(names = "--constants", description = "Number of constants.")
+  private int constant_count = 256;
+
+  @Option(
+    names = "--depth",
+    description = "Nesting depth of the expression in each procedure.")
+  private int depth = 8;
+
+  @Option(
+    names = "--chain",
+    description = "Number of branches in the `if` chain of each procedure.")
+  private int chain = 8;
+
+  @Option(
+    names = "--lines",
+    description = "Approximate number of lines, which overrides the number of procedures.")
+  private Integer line_count;
+
+  @Option(
+    names = "--seed",
+    description = "Seed of the random choices.")
+  private long seed = 0;
+
+  /** Random choices of the generated code. */
+  private Random random;
+
+  @Override
+  public Integer call() {
+    if (line_count != null) {
+      procedure_count = Math.max(1, line_count / (chain + 7));
+    }
+    random = new Random(seed);
+    try {
+      Files.createDirectories(directory);
+      for (int library = 0; library < library_count; library++) {
+        generate_library(library);
+      }
+      generate_program();
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(directory)
+        .to_diagnostic("failure", "Could not generate the sources!")
+        .to_exception(cause);
+    }
+    return 0;
+  }
+
+  /** Generates a library source. */
+  private void generate_library(int library) throws IOException {
+    try (
+      BufferedWriter writer =
+        Files
+          .newBufferedWriter(
+            directory.resolve(library_name(library) + Source.extension));
+      Formatter formatter = new Formatter(writer))
+    {
+      formatter.format("# Generated library %d.%n", library);
+      formatter.format("%n");
+      int constant_start = first(library, constant_count);
+      int constant_end = first(library + 1, constant_count);
+      for (int i = constant_start; i < constant_end; i++) {
+        formatter
+          .format("public const c%d = %d;%n", i, random.nextInt(1_000_000));
+      }
+      formatter.format("%n");
+      int global_start = first(library, global_count);
+      int global_end = first(library + 1, global_count);
+      for (int i = global_start; i < global_end; i++) {
+        formatter.format("public var g%d = %d;%n", i, random.nextInt(1000));
+      }
+      int procedure_start = first(library, procedure_count);
+      int procedure_end = first(library + 1, procedure_count);
+      for (int i = procedure_start; i < procedure_end; i++) {
+        formatter.format("%n");
+        generate_procedure(formatter, library, i);
+      }
+    }
+  }
+
+  /** Generates a procedure. */
+  private void generate_procedure(
+    Formatter formatter,
+    int library,
+    int procedure)
+  {
+    formatter.format("public proc p%d(a, b) {%n", procedure);
+    formatter.format("  var x = %s;%n", expression(library, procedure, depth));
+    for (int i = 0; i < chain; i++) {
+      formatter
+        .format(
+          "  %sif x < %d { x %s= %s; }%n",
+          i == 0 ? "" : "else ",
+          (i + 1) * 100,
+          operator(),
+          leaf(library));
+    }
+    if (chain != 0) { formatter.format("  else { x = 0; }%n"); }
+    String global = global(library);
+    if (global != null) { formatter.format("  %s += x;%n", global); }
+    formatter.format("  return x;%n");
+    formatter.format("}%n");
+  }
+
+  /** Generates the program that calls all the procedures. */
+  private void generate_program() throws IOException {
+    try (
+      BufferedWriter writer =
+        Files
+          .newBufferedWriter(directory.resolve("program" + Source.extension));
+      Formatter formatter = new Formatter(writer))
+    {
+      formatter.format("# Generated program.%n");
+      formatter.format("%n");
+      formatter.format("entrypoint {%n");
+      formatter.format("  var total = 0;%n");
+      for (int library = 0; library < library_count; library++) {
+        int procedure_start = first(library, procedure_count);
+        int procedure_end = first(library + 1, procedure_count);
+        for (int i = procedure_start; i < procedure_end; i++) {
+          formatter
+            .format(
+              "  total += %s::p%d(total, %d);%n",
+              library_name(library),
+              i,
+              i);
+        }
+      }
+      formatter.format("}%n");
+    }
+  }
+
+  /** Returns an expression that is nested to the given depth. */
+  private String expression(int library, int procedure, int depth) {
+    if (depth == 0) { return leaf(library); }
+    String inner = expression(library, procedure, depth - 1);
+    if (random.nextInt(8) == 0) {
+      String callee = procedure(library, procedure);
+      if (callee != null) { return "%s(%s, b)".formatted(callee, inner); }
+    }
+    return "(%s %s %s)".formatted(leaf(library), operator(), inner);
+  }
+
+  /** Returns a random operand that is not nested. */
+  private String leaf(int library) {
+    String leaf =
+      switch (random.nextInt(5)) {
+        case 0 -> "a";
+        case 1 -> "b";
+        case 2 -> symbol(library, constant_count, "c");
+        case 3 -> global(library);
+        default -> null;
+      };
+    if (leaf != null) { return leaf; }
+    return Integer.toString(random.nextInt(100) + 1);
+  }
+
+  /** Returns a random arithmetic operator. */
+  private String operator() {
+    return switch (random.nextInt(4)) {
+      case 0 -> "+";
+      case 1 -> "-";
+      case 2 -> "*";
+      default -> "/";
+    };
+  }
+
+  /** Returns a random global variable that can be used by a library. */
+  private String global(int library) {
+    return symbol(library, global_count, "g");
+  }
+
+  /** Returns a random procedure that can be called by a procedure without
+   * creating a cycle. */
+  private String procedure(int library, int procedure) {
+    int used = used_library(library);
+    int end = first(used + 1, procedure_count);
+    if (used == library) { end = procedure; }
+    int start = first(used, procedure_count);
+    if (start >= end) { return null; }
+    return "%s::p%d"
+      .formatted(library_name(used), start + random.nextInt(end - start));
+  }
+
+  /** Returns a random symbol that can be used by a library, where there are
+   * the given number of symbols of that kind in all the libraries. */
+  private String symbol(int library, int count, String prefix) {
+    int used = used_library(library);
+    int start = first(used, count);
+    int end = first(used + 1, count);
+    if (start >= end) { return null; }
+    return "%s::%s%d"
+      .formatted(
+        library_name(used),
+        prefix,
+        start + random.nextInt(end - start));
+  }
+
+  /** Returns a random library whose symbols can be used by a library. */
+  private int used_library(int library) {
+    int width = Math.min(library, import_width);
+    return library - random.nextInt(width + 1);
+  }
+
+  /** Returns the index of the first symbol in a library, where there are the
+   * given number of symbols of that kind in all the libraries. */
+  private int first(int library, int count) {
+    return (int) ((long) library * count / library_count);
+  }
+
+  /** Returns the name of a library source. */
+  private static String library_name(int library) {
+    return "library" + library;
+  }
+}
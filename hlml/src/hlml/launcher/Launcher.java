@@ -1,5 +1,7 @@
 package hlml.launcher;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
@@ -7,10 +9,8 @@ import java.util.Optional;
 import java.util.concurrent.Callable;
 
 import hlml.Values;
-import hlml.builder.Builder;
-import hlml.checker.Checker;
-import hlml.checker.Semantic;
-import hlml.reporter.Subject;
+import hlml.checker.Cache;
+import hlml.reporter.Reporter;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
@@ -32,31 +32,161 @@ final class Launcher implements Callable<Integer> {
     description = "File the compiled instructions will be saved to.")
   private Optional<Path> output_path;
 
+  @Option(
+    names = "-d",
+    description = "Directory the compiled instructions of each target will be saved to.")
+  private Optional<Path> output_directory;
+
   @Option(names = "-I", description = "A directory to look for source files.")
   private List<Path> includes;
 
-  @Parameters(description = "Name of the compiled source.")
-  private String name;
+  @Option(
+    names = "--serve",
+    description = "Keeps running as a daemon that compiles the targets requested through the given socket.")
+  private Optional<Path> served_socket;
+
+  @Option(
+    names = "--connect",
+    description = "Requests the compilation from the daemon serving at the given socket.")
+  private Optional<Path> connected_socket;
+
+  @Option(
+    names = "--stop",
+    description = "Stops the daemon serving at the given socket.")
+  private Optional<Path> stopped_socket;
+
+  @Option(
+    names = "--error-limit",
+    description = "Number of errors after which the compilation stops.")
+  private int error_limit = Reporter.default_error_limit;
+
+  @Option(
+    names = "--line-feed",
+    description = "Ends the compiled instructions with a line feed instead of the platform's line separator.")
+  private boolean line_feed;
+
+  @Option(
+    names = "--timings",
+    arity = "0..1",
+    fallbackValue = "table",
+    description = "Prints how long each phase took for each source, as a ${COMPLETION-CANDIDATES}.")
+  private Optional<TimingsFormat> timings;
+
+  @Parameters(
+    arity = "0..*",
+    description = "Names of the compiled sources, or globs that match them.")
+  private List<String> names;
 
   @Override
   public Integer call() {
-    try {
-      if (includes == null) { includes = new ArrayList<>(); }
-      includes.add(0, Path.of("."));
-      Subject subject = Subject.of("compiler");
-      Semantic.Target target =
-        Checker.check(subject, includes, name, Optional.empty());
-      if (output_path.isPresent()) {
-        Builder.build(subject, output_path.get(), target);
+    if (served_socket.isPresent()) {
+      try {
+        Daemon.serve(served_socket.get());
+        return 0;
+      }
+      catch (Throwable cause) {
+        report(cause);
+        return -1;
       }
-      return 0;
     }
-    catch (Throwable cause) {
-      while (cause != null) {
-        System.err.println(cause.getMessage());
-        cause = cause.getCause();
+    if (stopped_socket.isPresent()) {
+      try {
+        Response response = Daemon.stop(stopped_socket.get());
+        System.err.print(response.diagnostics());
+        return response.status();
       }
+      catch (Throwable cause) {
+        report(cause);
+        return -1;
+      }
+    }
+    if (names == null) {
+      System.err.println("compiler: error: Name of the source is not given!");
       return -1;
     }
+    if (output_path.isPresent() && output_directory.isPresent()) {
+      System.err
+        .println(
+          "compiler: error: Output file and directory cannot be given together!");
+      return -1;
+    }
+    if (includes == null) { includes = new ArrayList<>(); }
+    includes.add(0, Path.of("."));
+    List<Path> absolute_includes =
+      includes.stream().map(Launcher::absolute).toList();
+    List<String> targets;
+    try {
+      targets = Targets.expand(absolute_includes, names);
+    }
+    catch (Throwable cause) {
+      report(cause);
+      return -1;
+    }
+    if (output_path.isPresent() && targets.size() != 1) {
+      System.err
+        .println(
+          "compiler: error: Output file cannot be given for many targets!");
+      return -1;
+    }
+    if (output_directory.isPresent()) {
+      try {
+        Files.createDirectories(output_directory.get());
+      }
+      catch (IOException cause) {
+        report(cause);
+        return -1;
+      }
+    }
+    List<Request> requests = new ArrayList<>();
+    for (String target : targets) {
+      Optional<Path> target_output_path = output_path;
+      if (output_directory.isPresent()) {
+        target_output_path =
+          Optional.of(output_directory.get().resolve(target + ".mlog"));
+      }
+      requests
+        .add(
+          new Request(
+            absolute_includes,
+            target_output_path.map(Launcher::absolute),
+            target,
+            error_limit,
+            line_feed,
+            timings));
+    }
+    Batch batch = new Batch(requests);
+    List<Response> responses;
+    if (connected_socket.isPresent()) {
+      try {
+        responses = Daemon.forward(connected_socket.get(), batch);
+      }
+      catch (Throwable cause) {
+        report(cause);
+        return -1;
+      }
+    }
+    else {
+      responses = batch.compile(Cache.create());
+    }
+    int status = 0;
+    for (Response response : responses) {
+      System.err.print(response.diagnostics());
+      System.out.print(response.timings());
+      if (status == 0) { status = response.status(); }
+    }
+    return status;
+  }
+
+  /** Prints the messages of an exception and its causes. */
+  private static void report(Throwable cause) {
+    while (cause != null) {
+      System.err.println(cause.getMessage());
+      cause = cause.getCause();
+    }
+  }
+
+  /** Returns the absolute version of the given path. */
+  private static Path absolute(Path path) {
+    return path.toAbsolutePath().normalize();
   }
 }
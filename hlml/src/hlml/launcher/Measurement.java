@@ -0,0 +1,53 @@
+package hlml.launcher;
+
+import java.util.List;
+
+/** Result of a benchmark. Times are the average nanoseconds an operation took
+ * in each measured iteration. Allocation is the average bytes an operation
+ * allocated, and garbage collections are the total count and milliseconds
+ * over all the measured iterations. */
+record Measurement(
+  String name,
+  List<Double> times,
+  double allocated_bytes,
+  long gc_count,
+  long gc_time)
+{
+  /** Returns the average of the times. */
+  double score() {
+    double total = 0;
+    for (double time : times) { total += time; }
+    return total / times.size();
+  }
+
+  /** Returns the standard deviation of the times. */
+  double deviation() {
+    if (times.size() < 2) { return 0; }
+    double score = score();
+    double total = 0;
+    for (double time : times) { total += (time - score) * (time - score); }
+    return Math.sqrt(total / (times.size() - 1));
+  }
+
+  /** Appends the measurement as a JSON object. */
+  void append_json_to(StringBuilder json) {
+    json.append("{\"benchmark\": \"");
+    json.append(name);
+    json.append("\", \"unit\": \"ns/op\", \"score\": ");
+    json.append(score());
+    json.append(", \"deviation\": ");
+    json.append(deviation());
+    json.append(", \"times\": [");
+    for (int i = 0; i < times.size(); i++) {
+      if (i != 0) { json.append(", "); }
+      json.append(times.get(i));
+    }
+    json.append("], \"allocated_bytes_per_op\": ");
+    json.append(allocated_bytes);
+    json.append(", \"gc_count\": ");
+    json.append(gc_count);
+    json.append(", \"gc_time_ms\": ");
+    json.append(gc_time);
+    json.append('}');
+  }
+}
@@ -0,0 +1,108 @@
+package hlml.launcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Static measures of a compiled program, which are tracked against a
+ * baseline to catch the changes that make the generated code slower.
+ * Variables are the operands that are named by the compiler, which are the
+ * temporaries and the names with a `$`. Loop cost is the total number of
+ * instructions in the loops, where a loop starts at the goal of a backward
+ * jump and ends at the last backward jump to it, such that an instruction is
+ * counted for each loop it is in. */
+record Metrics(int instructions, int variables, int loop_cost) {
+  /** Measures the instructions in the text of a program. */
+  static Metrics of(String program) {
+    List<String> instructions =
+      program.lines().filter(l -> !l.isBlank()).toList();
+    Set<String> variables = new HashSet<>();
+    Map<Integer, Integer> loop_ends = new HashMap<>();
+    for (int i = 0; i < instructions.size(); i++) {
+      List<String> words = split(instructions.get(i));
+      for (String word : words) {
+        if (is_variable(word)) { variables.add(word); }
+      }
+      if (words.size() < 2 || !words.get(0).equals("jump")) { continue; }
+      int goal = Integer.parseInt(words.get(1));
+      if (goal <= i) { loop_ends.put(goal, i); }
+    }
+    int loop_cost = 0;
+    for (Map.Entry<Integer, Integer> loop : loop_ends.entrySet()) {
+      loop_cost += loop.getValue() - loop.getKey() + 1;
+    }
+    return new Metrics(instructions.size(), variables.size(), loop_cost);
+  }
+
+  /** Reads metrics that were written by {@link #toString()}. */
+  static Metrics parse(String text) {
+    String[] words = text.trim().split(" +");
+    return new Metrics(
+      Integer.parseInt(words[0]),
+      Integer.parseInt(words[1]),
+      Integer.parseInt(words[2]));
+  }
+
+  /** Splits an instruction to its words, where a string is a single word. */
+  private static List<String> split(String instruction) {
+    List<String> words = new ArrayList<>();
+    int start = 0;
+    boolean is_in_string = false;
+    for (int i = 0; i < instruction.length(); i++) {
+      char character = instruction.charAt(i);
+      if (character == '"') { is_in_string = !is_in_string; }
+      if (character != ' ' || is_in_string) { continue; }
+      if (start != i) { words.add(instruction.substring(start, i)); }
+      start = i + 1;
+    }
+    if (start != instruction.length()) {
+      words.add(instruction.substring(start));
+    }
+    return words;
+  }
+
+  /** Returns whether a word is a variable that is named by the compiler. */
+  private static boolean is_variable(String word) {
+    if (word.startsWith("\"")) { return false; }
+    if (word.indexOf('$') != -1) { return true; }
+    return word.length() > 1
+      && word.charAt(0) == '_'
+      && word.chars().skip(1).allMatch(Character::isDigit);
+  }
+
+  /** Returns the descriptions of the metrics that grew more than the given
+   * percentage over the baseline. */
+  List<String> regressions(Metrics baseline, double threshold) {
+    List<String> regressions = new ArrayList<>();
+    compare(
+      regressions,
+      "instructions",
+      baseline.instructions,
+      instructions,
+      threshold);
+    compare(regressions, "variables", baseline.variables, variables, threshold);
+    compare(regressions, "loop cost", baseline.loop_cost, loop_cost, threshold);
+    return regressions;
+  }
+
+  /** Adds the description of a metric if it grew more than the given
+   * percentage over the baseline. */
+  private static void compare(
+    List<String> regressions,
+    String name,
+    int baseline,
+    int current,
+    double threshold)
+  {
+    if (current <= baseline * (1 + threshold / 100)) { return; }
+    regressions.add("%s %d -> %d".formatted(name, baseline, current));
+  }
+
+  @Override
+  public String toString() {
+    return "%d %d %d".formatted(instructions, variables, loop_cost);
+  }
+}
@@ -0,0 +1,247 @@
+package hlml.launcher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+import hlml.Source;
+import hlml.builder.Builder;
+import hlml.checker.Cache;
+import hlml.checker.Checker;
+import hlml.checker.Semantic;
+import hlml.loader.SourceProvider;
+import hlml.reporter.Reporter;
+import hlml.reporter.Subject;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/** Guards the generated code of the executable tests. Compiles each of them,
+ * compares the instructions with the artifact that was saved by the debug
+ * launcher, and compares the metrics of the instructions with a baseline.
+ * Fails if an artifact differs or a metric grows more than the threshold.
+ * Must be launched from the project directory. */
+@Command(
+  name = "hlml-regression",
+  description = "Compares the compiled tests with their artifacts and baseline metrics.",
+  mixinStandardHelpOptions = true)
+final class RegressionLauncher implements Callable<Integer> {
+  /** Launches after parsing commands. */
+  public static void main(String... arguments) {
+    System.exit(new CommandLine(new RegressionLauncher()).execute(arguments));
+  }
+
+  @Option(
+    names = "--baseline",
+    description = "File the metrics are compared against.")
+  private Path baseline_path = Path.of("tests", "baseline.txt");
+
+  @Option(
+    names = "--threshold",
+    description = "Percentage a metric can grow over its baseline without failing.")
+  private double threshold = 0;
+
+  @Option(
+    names = "--update",
+    description = "Saves the metrics of the tests as the baseline instead of comparing them.")
+  private boolean update;
+
+  /** Subject that is reported when the tests cannot be run. */
+  private final Subject subject = Subject.of("regression");
+
+  /** Directory of the instructions the tests are expected to compile to. */
+  private final Path artifacts = Path.of("tests", "artifacts");
+
+  /** Directory of the tests. */
+  private final Path executables = Path.of("tests", "executables");
+
+  @Override
+  public Integer call() {
+    List<Path> includes =
+      List.of(executables, Path.of("tests", "libraries"), Path.of("assets"));
+    Cache cache = Cache.create();
+    Map<String, Metrics> measured = new TreeMap<>();
+    int failures = 0;
+    for (String name : list_tests()) {
+      String program;
+      try {
+        Semantic.Target target =
+          Checker
+            .check(
+              subject,
+              SourceProvider.of(includes),
+              name,
+              new Checker.Options(
+                cache,
+                Reporter.create(Reporter.default_error_limit),
+                Optional.empty(),
+                Optional.empty()));
+        program =
+          StandardCharsets.UTF_8
+            .decode(
+              Builder
+                .build(
+                  subject,
+                  target,
+                  new Builder.Options("\n", Optional.empty())))
+            .toString();
+      }
+      catch (RuntimeException cause) {
+        System.out.printf("`%s` could not be compiled:%n", name);
+        System.out.println(cause.getMessage());
+        failures++;
+        continue;
+      }
+      if (!compare_to_artifact(name, program)) { failures++; }
+      measured.put(name, Metrics.of(program));
+    }
+    if (update) {
+      write_baseline(measured);
+      System.out
+        .printf(
+          "Saved the metrics of %d tests to `%s`.%n",
+          measured.size(),
+          baseline_path);
+      return failures == 0 ? 0 : 1;
+    }
+    Map<String, Metrics> baseline = read_baseline();
+    Metrics total_baseline = new Metrics(0, 0, 0);
+    Metrics total = new Metrics(0, 0, 0);
+    for (Map.Entry<String, Metrics> test : measured.entrySet()) {
+      String name = test.getKey();
+      Metrics metrics = test.getValue();
+      if (!baseline.containsKey(name)) {
+        System.out.printf("`%s` has no baseline: %s%n", name, metrics);
+        continue;
+      }
+      Metrics expected = baseline.get(name);
+      total_baseline = add(total_baseline, expected);
+      total = add(total, metrics);
+      List<String> regressions = metrics.regressions(expected, threshold);
+      if (regressions.isEmpty()) { continue; }
+      System.out
+        .printf(
+          "`%s` regressed: %s%n",
+          name,
+          String.join(", ", regressions));
+      failures++;
+    }
+    System.out
+      .printf(
+        "Compiled %d tests with %d failures. Instructions: %d -> %d, variables: %d -> %d, loop cost: %d -> %d.%n",
+        measured.size(),
+        failures,
+        total_baseline.instructions(),
+        total.instructions(),
+        total_baseline.variables(),
+        total.variables(),
+        total_baseline.loop_cost(),
+        total.loop_cost());
+    return failures == 0 ? 0 : 1;
+  }
+
+  /** Returns the names of the tests in alphabetical order. */
+  private List<String> list_tests() {
+    try (Stream<Path> files = Files.list(executables)) {
+      return files
+        .map(Path::getFileName)
+        .map(Path::toString)
+        .filter(n -> n.endsWith(Source.extension))
+        .map(n -> n.substring(0, n.length() - Source.extension.length()))
+        .sorted()
+        .toList();
+    }
+    catch (IOException cause) {
+      throw subject
+        .to_diagnostic("failure", "Could not list the executable tests!")
+        .to_exception(cause);
+    }
+  }
+
+  /** Compares a compiled test with its artifact. Returns whether they have
+   * the same instructions, and prints the first difference if they do
+   * not. */
+  private boolean compare_to_artifact(String name, String program) {
+    Path artifact = artifacts.resolve(name + ".mlog");
+    List<String> expected;
+    try {
+      expected = Files.readString(artifact).lines().toList();
+    }
+    catch (IOException cause) {
+      System.out.printf("`%s` has no artifact at `%s`!%n", name, artifact);
+      return false;
+    }
+    List<String> found = program.lines().toList();
+    for (int i = 0; i < Math.max(expected.size(), found.size()); i++) {
+      String expected_line = i < expected.size() ? expected.get(i) : "";
+      String found_line = i < found.size() ? found.get(i) : "";
+      if (expected_line.equals(found_line)) { continue; }
+      System.out
+        .printf(
+          "`%s` differs from its artifact at instruction %d: expected `%s`, found `%s`!%n",
+          name,
+          i,
+          expected_line,
+          found_line);
+      return false;
+    }
+    return true;
+  }
+
+  /** Reads the metrics of the tests from the baseline file. */
+  private Map<String, Metrics> read_baseline() {
+    List<String> lines;
+    try {
+      lines = Files.readAllLines(baseline_path);
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(baseline_path)
+        .to_diagnostic("failure", "Could not read the baseline!")
+        .to_exception(cause);
+    }
+    Map<String, Metrics> baseline = new TreeMap<>();
+    for (String line : lines) {
+      if (line.isBlank() || line.startsWith("#")) { continue; }
+      int separator = line.indexOf(' ');
+      baseline
+        .put(
+          line.substring(0, separator),
+          Metrics.parse(line.substring(separator + 1)));
+    }
+    return baseline;
+  }
+
+  /** Writes the metrics of the tests to the baseline file. */
+  private void write_baseline(Map<String, Metrics> measured) {
+    List<String> lines = new ArrayList<>();
+    lines.add("# Metrics of the executable tests, which are checked by the");
+    lines.add("# regression launcher: instructions, variables and loop cost.");
+    measured.forEach((name, metrics) -> lines.add(name + " " + metrics));
+    try {
+      Files.write(baseline_path, lines);
+    }
+    catch (IOException cause) {
+      throw Subject
+        .of(baseline_path)
+        .to_diagnostic("failure", "Could not write the baseline!")
+        .to_exception(cause);
+    }
+  }
+
+  /** Returns the sum of two metrics. */
+  private static Metrics add(Metrics left, Metrics right) {
+    return new Metrics(
+      left.instructions() + right.instructions(),
+      left.variables() + right.variables(),
+      left.loop_cost() + right.loop_cost());
+  }
+}
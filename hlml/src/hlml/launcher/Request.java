@@ -0,0 +1,116 @@
+package hlml.launcher;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import hlml.Timings;
+import hlml.builder.Builder;
+import hlml.checker.Cache;
+import hlml.checker.Checker;
+import hlml.checker.Semantic;
+import hlml.loader.SourceProvider;
+import hlml.reporter.Reporter;
+import hlml.reporter.Subject;
+
+/** Compilation of a target that was requested from the command line. Paths are
+ * absolute such that it can be forwarded to a daemon that runs in another
+ * directory. */
+record Request(
+  List<Path> includes,
+  Optional<Path> output_path,
+  String name,
+  int error_limit,
+  boolean line_feed,
+  Optional<TimingsFormat> timings)
+{
+  /** Reads a request that was written by {@link #write_to(DataOutput)}. */
+  static Request read_from(DataInput input) throws IOException {
+    int include_count = input.readInt();
+    List<Path> includes = new ArrayList<>();
+    for (int i = 0; i < include_count; i++) {
+      includes.add(Path.of(input.readUTF()));
+    }
+    Optional<Path> output_path = Optional.empty();
+    if (input.readBoolean()) {
+      output_path = Optional.of(Path.of(input.readUTF()));
+    }
+    String name = input.readUTF();
+    int error_limit = input.readInt();
+    boolean line_feed = input.readBoolean();
+    Optional<TimingsFormat> timings = Optional.empty();
+    if (input.readBoolean()) {
+      timings = Optional.of(TimingsFormat.valueOf(input.readUTF()));
+    }
+    return new Request(
+      includes,
+      output_path,
+      name,
+      error_limit,
+      line_feed,
+      timings);
+  }
+
+  /** Writes the request such that it can be read by
+   * {@link #read_from(DataInput)}. */
+  void write_to(DataOutput output) throws IOException {
+    output.writeInt(includes.size());
+    for (Path include : includes) { output.writeUTF(include.toString()); }
+    output.writeBoolean(output_path.isPresent());
+    if (output_path.isPresent()) {
+      output.writeUTF(output_path.get().toString());
+    }
+    output.writeUTF(name);
+    output.writeInt(error_limit);
+    output.writeBoolean(line_feed);
+    output.writeBoolean(timings.isPresent());
+    if (timings.isPresent()) { output.writeUTF(timings.get().name()); }
+  }
+
+  /** Compiles the target by reusing the sources in the given cache. Measures
+   * the phases if the timings are requested. */
+  Response compile(Cache cache) {
+    Optional<Timings> measured = timings.map(f -> Timings.create());
+    Response response;
+    try {
+      Subject subject = Subject.of("compiler");
+      Semantic.Target target =
+        Checker
+          .check(
+            subject,
+            SourceProvider.of(includes),
+            name,
+            new Checker.Options(
+              cache,
+              Reporter.create(error_limit),
+              Optional.empty(),
+              measured));
+      if (output_path.isPresent()) {
+        Builder
+          .build(
+            subject,
+            output_path.get(),
+            target,
+            new Builder.Options(
+              line_feed ? "\n" : System.lineSeparator(),
+              measured));
+      }
+      response = new Response(0, "", "");
+    }
+    catch (Throwable cause) {
+      response = Response.failure(cause);
+    }
+    if (measured.isEmpty()) { return response; }
+    String report =
+      switch (timings.get()) {
+        case table ->
+          "Timings of `%s`:%n%s".formatted(name, measured.get().to_table());
+        case json -> measured.get().to_json(name);
+      };
+    return new Response(response.status(), response.diagnostics(), report);
+  }
+}
@@ -0,0 +1,59 @@
+package hlml.launcher;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+/** Result of compiling a requested target. Holds the measurements of the
+ * phases if they were requested, or an empty text. */
+record Response(int status, String diagnostics, String timings) {
+  /** Returns a failed response that holds the messages of an exception and
+   * its causes. */
+  static Response failure(Throwable cause) {
+    StringWriter diagnostics = new StringWriter();
+    PrintWriter writer = new PrintWriter(diagnostics);
+    while (cause != null) {
+      writer.println(cause.getMessage());
+      cause = cause.getCause();
+    }
+    writer.flush();
+    return new Response(-1, diagnostics.toString(), "");
+  }
+
+  /** Reads a response that was written by {@link #write_to(DataOutput)}. */
+  static Response read_from(DataInput input) throws IOException {
+    int status = input.readInt();
+    String diagnostics = read_text(input);
+    String timings = read_text(input);
+    return new Response(status, diagnostics, timings);
+  }
+
+  /** Writes the response such that it can be read by
+   * {@link #read_from(DataInput)}. */
+  void write_to(DataOutput output) throws IOException {
+    output.writeInt(status);
+    write_text(output, diagnostics);
+    write_text(output, timings);
+  }
+
+  /** Reads a text that was written by {@link #write_text(DataOutput, String)},
+   * which can be longer than the texts of {@link DataInput#readUTF()}. */
+  private static String read_text(DataInput input) throws IOException {
+    byte[] encoded = new byte[input.readInt()];
+    input.readFully(encoded);
+    return new String(encoded, StandardCharsets.UTF_8);
+  }
+
+  /** Writes a text such that it can be read by
+   * {@link #read_text(DataInput)}. */
+  private static void write_text(DataOutput output, String text)
+    throws IOException
+  {
+    byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(encoded.length);
+    output.write(encoded);
+  }
+}
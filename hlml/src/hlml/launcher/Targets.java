@@ -0,0 +1,88 @@
+package hlml.launcher;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import hlml.Source;
+import hlml.reporter.Subject;
+
+/** Finds the names of the targets that are given on the command line. */
+final class Targets {
+  /** Returns the names of the targets in the given order without the repeated
+   * ones. Names that have any of the glob characters `*?[{` are replaced by
+   * the names of the source files in the include directories that match
+   * them, in alphabetical order. */
+  static List<String> expand(List<Path> includes, List<String> names) {
+    Set<String> targets = new LinkedHashSet<>();
+    for (String name : names) {
+      if (!is_glob(name)) {
+        targets.add(name);
+        continue;
+      }
+      Set<String> matches = match(includes, name);
+      if (matches.isEmpty()) {
+        throw Subject
+          .of("compiler")
+          .to_diagnostic(
+            "error",
+            "Could not find a source that matches `%s` in the fallowing directories: `%s`!",
+            name,
+            includes)
+          .to_exception();
+      }
+      targets.addAll(matches);
+    }
+    return new ArrayList<>(targets);
+  }
+
+  /** Returns whether a name is a glob. */
+  private static boolean is_glob(String name) {
+    for (int i = 0; i < name.length(); i++) {
+      switch (name.charAt(i)) {
+        case '*', '?', '[', '{' -> { return true; }
+        default -> {}
+      }
+    }
+    return false;
+  }
+
+  /** Returns the names of the source files in the include directories that
+   * match a glob. */
+  private static Set<String> match(List<Path> includes, String glob) {
+    PathMatcher matcher =
+      FileSystems.getDefault().getPathMatcher("glob:" + glob);
+    Set<String> matches = new TreeSet<>();
+    for (Path site : includes) {
+      if (!Files.isDirectory(site)) { continue; }
+      try (
+        DirectoryStream<Path> files =
+          Files.newDirectoryStream(site, "*" + Source.extension))
+      {
+        for (Path file : files) {
+          String name = file.getFileName().toString();
+          name = name.substring(0, name.length() - Source.extension.length());
+          if (matcher.matches(Path.of(name))) { matches.add(name); }
+        }
+      }
+      catch (IOException cause) {
+        throw Subject
+          .of(site)
+          .to_diagnostic("failure", "Could not list the include directory!")
+          .to_exception(cause);
+      }
+    }
+    return matches;
+  }
+
+  /** Constructor. */
+  private Targets() {}
+}
@@ -0,0 +1,10 @@
+package hlml.launcher;
+
+/** Form the measurements of the phases are printed in. */
+enum TimingsFormat {
+  /** Table that is read by humans. */
+  table,
+
+  /** JSON object for each target on its own line. */
+  json,
+}
@@ -5,22 +5,49 @@ import java.util.List;
 
 import hlml.loader.LoadedSource;
 import hlml.parser.Node;
+import hlml.reporter.Diagnostic;
+import hlml.reporter.LineIndex;
 import hlml.reporter.Subject;
 
 /** Lexical representation of a source file. */
 public class LexedSource extends LoadedSource {
-  /** List of the tokens in the source file. */
+  /** Packed tokens in the source file. */
+  public final TokenStream token_stream;
+
+  /** List of the tokens in the source file, which are created from the packed
+   * tokens when accessed. */
   public final List<Token> tokens;
 
+  /** Problems that were found in the source file so far, in the order they
+   * were found. The source file is not valid if there are any. */
+  public final List<Diagnostic> diagnostics;
+
   /** Constructs. */
-  public LexedSource(Path path, String contents, List<Token> tokens) {
-    super(path, contents);
-    this.tokens = tokens;
+  public LexedSource(
+    Path path,
+    String contents,
+    LineIndex lines,
+    TokenStream token_stream,
+    List<Diagnostic> diagnostics)
+  {
+    super(path, contents, lines);
+    this.token_stream = token_stream;
+    this.diagnostics = diagnostics;
+    tokens = token_stream.as_list();
   }
 
   /** Constructs. */
-  public LexedSource(LoadedSource parent, List<Token> tokens) {
-    this(parent.path, parent.contents, tokens);
+  public LexedSource(
+    LoadedSource parent,
+    TokenStream token_stream,
+    List<Diagnostic> diagnostics)
+  {
+    this(
+      parent.path,
+      parent.contents,
+      parent.lines,
+      token_stream,
+      diagnostics);
   }
 
   /** Returns a node's text. */
@@ -1,15 +1,94 @@
 package hlml.lexer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
-import java.util.function.IntFunction;
 
 import hlml.loader.LoadedSource;
+import hlml.reporter.Diagnostic;
+import hlml.reporter.DiagnosticException;
 
 /** Transforms a source file to a list of tokens. */
 public final class Lexer {
+  /** Flag of the characters that are letters. */
+  private static final byte letter = 1;
+
+  /** Flag of the characters that are decimal digits. */
+  private static final byte digit = 2;
+
+  /** Flag of the characters that can be a part of a word after its first
+   * letter. */
+  private static final byte word_part = 4;
+
+  /** Flags of the ASCII characters. */
+  private static final byte[] character_flags = new byte[128];
+
+  /** Texts of the keywords by their kind. */
+  private static final String[] keywords =
+    {
+      "entrypoint",
+      "public",
+      "link",
+      "using",
+      "as",
+      "proc",
+      "const",
+      "var",
+      "if",
+      "else",
+      "while",
+      "break",
+      "continue",
+      "return" };
+
+  /** Kinds of the keywords by the ASCII character they start with. */
+  private static final int[][] keywords_by_initial = new int[128][];
+
+  static {
+    for (int character = 'a'; character <= 'z'; character++) {
+      character_flags[character] = letter | word_part;
+    }
+    for (int character = 'A'; character <= 'Z'; character++) {
+      character_flags[character] = letter | word_part;
+    }
+    for (int character = '0'; character <= '9'; character++) {
+      character_flags[character] = digit | word_part;
+    }
+    character_flags['_'] = word_part;
+    for (int kind = 0; kind < keywords.length; kind++) {
+      int initial = keywords[kind].charAt(0);
+      int[] candidates = keywords_by_initial[initial];
+      if (candidates == null) { candidates = new int[0]; }
+      candidates = Arrays.copyOf(candidates, candidates.length + 1);
+      candidates[candidates.length - 1] = kind;
+      keywords_by_initial[initial] = candidates;
+    }
+  }
+
+  /** Returns whether a character is an ASCII letter. */
+  private static boolean is_letter(int character) {
+    return has_flag(character, letter);
+  }
+
+  /** Returns whether a character is a decimal digit. */
+  private static boolean is_digit(int character) {
+    return has_flag(character, digit);
+  }
+
+  /** Returns whether a character can be a part of a word after its first
+   * letter. */
+  private static boolean is_word_part(int character) {
+    return has_flag(character, word_part);
+  }
+
+  /** Returns whether a character is ASCII and has the given flag. */
+  private static boolean has_flag(int character, byte flag) {
+    return character < character_flags.length
+      && (character_flags[character] & flag) != 0;
+  }
+
   /** Lexes a source file.. */
   public static LexedSource lex(LoadedSource source) {
     Lexer lexer = new Lexer(source);
@@ -20,7 +99,10 @@ public final class Lexer {
   private final LoadedSource source;
 
   /** Tokens that were lexed. */
-  private List<Token> tokens;
+  private TokenStream tokens;
+
+  /** Problems that were found while lexing. */
+  private List<Diagnostic> diagnostics;
 
   /** Index of the currently lexed character. */
   private int current;
@@ -38,245 +120,210 @@ public final class Lexer {
 
   /** Lexes the source file. */
   private LexedSource lex() {
-    tokens = new ArrayList<Token>();
+    tokens = TokenStream.create();
+    diagnostics = new ArrayList<>();
     current = 0;
     while (has_current()) {
       initial = get_current();
       start = current;
       advance();
-      switch (initial) {
-        case ' ', '\t', '\r', '\n' -> {}
-        case '#' -> {
-          while (has_current()) {
-            int character = get_current();
-            advance();
-            if (character == '\n') { break; }
-          }
+      try {
+        lex_token();
+      }
+      catch (DiagnosticException cause) {
+        diagnostics.add(cause.diagnostic);
+        recover();
+      }
+    }
+    return new LexedSource(source, tokens, diagnostics);
+  }
+
+  /** Lexes the token that starts with the initial character, which is already
+   * advanced over. */
+  private void lex_token() {
+    switch (initial) {
+      case ' ', '\t', '\r', '\n' -> {}
+      case '#' -> {
+        while (has_current()) {
+          int character = get_current();
+          advance();
+          if (character == '\n') { break; }
         }
-        case '{' -> lex_single(Token.OpeningBrace::new);
-        case '}' -> lex_single(Token.ClosingBrace::new);
-        case '(' -> lex_single(Token.OpeningParenthesis::new);
-        case ')' -> lex_single(Token.ClosingParenthesis::new);
-        case ';' -> lex_single(Token.Semicolon::new);
-        case '.' -> lex_single(Token.Dot::new);
-        case ',' -> lex_single(Token.Comma::new);
-        case '~' -> lex_single(Token.Tilde::new);
-        case ':' -> lex_repeatable(Token.Colon::new, Token.ColonColon::new);
-        case '*' -> lex_extensible(Token.Star::new, Token.StarEqual::new);
-        case '%' -> lex_extensible(Token.Percent::new, Token.PercentEqual::new);
-        case '^' -> lex_extensible(Token.Caret::new, Token.CaretEqual::new);
-        case '!' ->
-          lex_extensible(Token.Exclamation::new, Token.ExclamationEqual::new);
-        case '+' ->
-          lex_repeatable_or_extensible(
-            Token.Plus::new,
-            Token.PlusPlus::new,
-            Token.PlusEqual::new);
-        case '-' ->
-          lex_repeatable_or_extensible(
-            Token.Minus::new,
-            Token.MinusMinus::new,
-            Token.MinusEqual::new);
-        case '&' ->
-          lex_repeatable_or_extensible(
-            Token.Ampersand::new,
-            Token.AmpersandAmpersand::new,
-            Token.AmpersandEqual::new);
-        case '|' ->
-          lex_repeatable_or_extensible(
-            Token.Pipe::new,
-            Token.PipePipe::new,
-            Token.PipeEqual::new);
-        case '/' ->
-          lex_repeatable_and_extensible(
-            Token.Slash::new,
-            Token.SlashSlash::new,
-            Token.SlashEqual::new,
-            Token.SlashSlashEqual::new);
-        case '<' ->
-          lex_repeatable_and_extensible(
-            Token.Left::new,
-            Token.LeftLeft::new,
-            Token.LeftEqual::new,
-            Token.LeftLeftEqual::new);
-        case '>' ->
-          lex_repeatable_and_extensible(
-            Token.Right::new,
-            Token.RightRight::new,
-            Token.RightEqual::new,
-            Token.RightRightEqual::new);
-        case '=' ->
-          lex_repeatable_and_extensible(
-            Token.Equal::new,
-            Token.EqualEqual::new,
-            Token.EqualEqual::new,
-            Token.EqualEqualEqual::new);
-        case '"' -> {
-          StringBuilder builder = new StringBuilder();
-          while (true) {
-            int character;
-            if (!has_current() || (character = get_current()) == '\n') {
-              throw source
-                .subject(start, current)
-                .to_diagnostic("error", "Incomplete string constant!")
-                .to_exception();
-            }
-            advance();
-            if (character == '"') { break; }
-            builder.appendCodePoint(character);
+      }
+      case '{' -> lex_single(TokenKind.opening_brace);
+      case '}' -> lex_single(TokenKind.closing_brace);
+      case '(' -> lex_single(TokenKind.opening_parenthesis);
+      case ')' -> lex_single(TokenKind.closing_parenthesis);
+      case ';' -> lex_single(TokenKind.semicolon);
+      case '.' -> lex_single(TokenKind.dot);
+      case ',' -> lex_single(TokenKind.comma);
+      case '~' -> lex_single(TokenKind.tilde);
+      case ':' -> lex_repeatable(TokenKind.colon, TokenKind.colon_colon);
+      case '*' -> lex_extensible(TokenKind.star, TokenKind.star_equal);
+      case '%' -> lex_extensible(TokenKind.percent, TokenKind.percent_equal);
+      case '^' -> lex_extensible(TokenKind.caret, TokenKind.caret_equal);
+      case '!' ->
+        lex_extensible(TokenKind.exclamation, TokenKind.exclamation_equal);
+      case '+' ->
+        lex_repeatable_or_extensible(
+          TokenKind.plus,
+          TokenKind.plus_plus,
+          TokenKind.plus_equal);
+      case '-' ->
+        lex_repeatable_or_extensible(
+          TokenKind.minus,
+          TokenKind.minus_minus,
+          TokenKind.minus_equal);
+      case '&' ->
+        lex_repeatable_or_extensible(
+          TokenKind.ampersand,
+          TokenKind.ampersand_ampersand,
+          TokenKind.ampersand_equal);
+      case '|' ->
+        lex_repeatable_or_extensible(
+          TokenKind.pipe,
+          TokenKind.pipe_pipe,
+          TokenKind.pipe_equal);
+      case '/' ->
+        lex_repeatable_and_extensible(
+          TokenKind.slash,
+          TokenKind.slash_slash,
+          TokenKind.slash_equal,
+          TokenKind.slash_slash_equal);
+      case '<' ->
+        lex_repeatable_and_extensible(
+          TokenKind.left,
+          TokenKind.left_left,
+          TokenKind.left_equal,
+          TokenKind.left_left_equal);
+      case '>' ->
+        lex_repeatable_and_extensible(
+          TokenKind.right,
+          TokenKind.right_right,
+          TokenKind.right_equal,
+          TokenKind.right_right_equal);
+      case '=' ->
+        lex_repeatable_and_extensible(
+          TokenKind.equal,
+          TokenKind.equal_equal,
+          TokenKind.equal_equal,
+          TokenKind.equal_equal_equal);
+      case '"' -> {
+        StringBuilder builder = new StringBuilder();
+        while (true) {
+          int character;
+          if (!has_current() || (character = get_current()) == '\n') {
+            throw source
+              .subject(start, current)
+              .to_diagnostic("error", "Incomplete string constant!")
+              .to_exception();
           }
-          String value = builder.toString();
-          tokens.add(new Token.StringConstant(start, current, value));
+          advance();
+          if (character == '"') { break; }
+          builder.appendCodePoint(character);
         }
-        default -> {
-          if (initial >= 'a' && initial <= 'z'
-            || initial >= 'A' && initial <= 'Z')
-          {
-            while (has_current()) {
-              int character = get_current();
-              boolean is_word_part =
-                character >= 'a' && character <= 'z'
-                  || character >= 'A' && character <= 'Z'
-                  || character >= '0' && character <= '9'
-                  || character == '_';
-              if (!is_word_part) { break; }
-              advance();
-            }
+        String value = builder.toString();
+        tokens.add(TokenKind.string_constant, start, current, value);
+      }
+      default -> {
+        if (is_letter(initial)) {
+          skip_word();
+          int kind = keyword_kind();
+          if (kind == TokenKind.identifier) {
             String text = source.contents.substring(start, current);
-            Token token;
-            switch (text) {
-              case "entrypoint" -> { token = new Token.Entrypoint(start); }
-              case "public" -> { token = new Token.Public(start); }
-              case "link" -> { token = new Token.Link(start); }
-              case "using" -> { token = new Token.Using(start); }
-              case "as" -> { token = new Token.As(start); }
-              case "proc" -> { token = new Token.Proc(start); }
-              case "const" -> { token = new Token.Const(start); }
-              case "var" -> { token = new Token.Var(start); }
-              case "if" -> { token = new Token.If(start); }
-              case "else" -> { token = new Token.Else(start); }
-              case "while" -> { token = new Token.While(start); }
-              case "break" -> { token = new Token.Break(start); }
-              case "continue" -> { token = new Token.Continue(start); }
-              case "return" -> { token = new Token.Return(start); }
-              default -> { token = new Token.Identifier(start, text); }
-            }
-            tokens.add(token);
-            break;
+            tokens.add(kind, start, current, text);
           }
-          if (initial == '0'
-            && has_current()
-            && (get_current() == 'p' || get_current() == 'P'))
-          {
-            NumberBase base = NumberBase.of(16);
-            NumberBuilder builder = NumberBuilder.create(base);
-            advance();
-            try {
-              int digit_count = 1;
-              builder.insert(enforce_digit(base));
-              while (has_current()) {
-                if (get_current() == '_') {
-                  advance();
-                  builder.insert(enforce_digit(base));
-                }
-                else {
-                  OptionalInt maybe_digit = lex_digit(base);
-                  if (maybe_digit.isEmpty()) { break; }
-                  builder.insert(maybe_digit.getAsInt());
-                }
-                digit_count++;
-              }
-              if (digit_count != 6 && digit_count != 8) {
-                throw source
-                  .subject(start, current)
-                  .to_diagnostic(
-                    "error",
-                    "Color constants must have 6 or 8 hexadecimal digits!")
-                  .to_exception();
+          else {
+            tokens.add(kind, start, current, null);
+          }
+          break;
+        }
+        if (initial == '0'
+          && has_current()
+          && (get_current() == 'p' || get_current() == 'P'))
+        {
+          NumberBase base = NumberBase.of(16);
+          NumberBuilder builder = NumberBuilder.create(base);
+          advance();
+          try {
+            int digit_count = 1;
+            builder.insert(enforce_digit(base));
+            while (has_current()) {
+              if (get_current() == '_') {
+                advance();
+                builder.insert(enforce_digit(base));
               }
-              int value = builder.build_int();
-              if (digit_count == 6) {
-                value <<= 8;
-                value |= 0xff;
+              else {
+                OptionalInt maybe_digit = lex_digit(base);
+                if (maybe_digit.isEmpty()) { break; }
+                builder.insert(maybe_digit.getAsInt());
               }
-              tokens.add(new Token.ColorConstant(start, current, value));
+              digit_count++;
             }
-            catch (ArithmeticException cause) {
+            if (digit_count != 6 && digit_count != 8) {
               throw source
                 .subject(start, current)
-                .to_diagnostic("error", "Could not lex the color constant!")
-                .to_exception(cause);
+                .to_diagnostic(
+                  "error",
+                  "Color constants must have 6 or 8 hexadecimal digits!")
+                .to_exception();
+            }
+            int value = builder.build_int();
+            if (digit_count == 6) {
+              value <<= 8;
+              value |= 0xff;
             }
-            break;
+            tokens.add(TokenKind.color_constant, start, current, value);
           }
-          if (initial >= '0' && initial <= '9') {
-            int digit = initial - '0';
-            NumberBase base = NumberBase.of(10);
-            if (digit == 0 && has_current()) {
-              Optional<NumberBase> given_base = switch (get_current()) {
-                case 'b', 'B' -> Optional.of(NumberBase.of(2));
-                case 'o', 'O' -> Optional.of(NumberBase.of(8));
-                case 'd', 'D' -> Optional.of(NumberBase.of(10));
-                case 'x', 'X' -> Optional.of(NumberBase.of(16));
-                default -> Optional.empty();
-              };
-              if (given_base.isPresent()) {
-                base = given_base.get();
+          catch (ArithmeticException cause) {
+            throw source
+              .subject(start, current)
+              .to_diagnostic("error", "Could not lex the color constant!")
+              .to_exception(cause);
+          }
+          break;
+        }
+        if (is_digit(initial)) {
+          int digit = initial - '0';
+          NumberBase base = NumberBase.of(10);
+          if (digit == 0 && has_current()) {
+            Optional<NumberBase> given_base = switch (get_current()) {
+              case 'b', 'B' -> Optional.of(NumberBase.of(2));
+              case 'o', 'O' -> Optional.of(NumberBase.of(8));
+              case 'd', 'D' -> Optional.of(NumberBase.of(10));
+              case 'x', 'X' -> Optional.of(NumberBase.of(16));
+              default -> Optional.empty();
+            };
+            if (given_base.isPresent()) {
+              base = given_base.get();
+              advance();
+              digit = enforce_digit(base);
+            }
+          }
+          NumberBuilder builder = NumberBuilder.create(base);
+          try {
+            builder.insert(digit);
+            while (has_current()) {
+              if (get_current() == '_') {
                 advance();
-                digit = enforce_digit(base);
+                builder.insert(enforce_digit(base));
               }
-            }
-            NumberBuilder builder = NumberBuilder.create(base);
-            try {
-              builder.insert(digit);
-              while (has_current()) {
-                if (get_current() == '_') {
-                  advance();
-                  builder.insert(enforce_digit(base));
-                }
-                else {
-                  OptionalInt maybe_digit = lex_digit(base);
-                  if (maybe_digit.isEmpty()) { break; }
-                  builder.insert(maybe_digit.getAsInt());
-                }
+              else {
+                OptionalInt maybe_digit = lex_digit(base);
+                if (maybe_digit.isEmpty()) { break; }
+                builder.insert(maybe_digit.getAsInt());
               }
-              if (has_current() && get_current() == '.') {
-                int start = current;
-                advance();
-                builder.fraction_separator();
-                OptionalInt first_digit = lex_digit(base);
-                if (first_digit.isEmpty()) {
-                  current = start;
-                }
-                else {
-                  builder.insert(first_digit.getAsInt());
-                  while (has_current()) {
-                    if (get_current() == '_') {
-                      advance();
-                      builder.insert(enforce_digit(base));
-                    }
-                    else {
-                      OptionalInt maybe_digit = lex_digit(base);
-                      if (maybe_digit.isEmpty()) { break; }
-                      builder.insert(maybe_digit.getAsInt());
-                    }
-                  }
-                }
+            }
+            if (has_current() && get_current() == '.') {
+              int start = current;
+              advance();
+              builder.fraction_separator();
+              OptionalInt first_digit = lex_digit(base);
+              if (first_digit.isEmpty()) {
+                current = start;
               }
-              int exponent_separator =
-                base instanceof NumberBase.PowerOfTwo ? 'p' : 'e';
-              if (has_current()
-                && (get_current() == exponent_separator
-                  || get_current() == exponent_separator + 'A' - 'a'))
-              {
-                advance();
-                boolean is_negative = has_current() && get_current() == '-';
-                if (is_negative || has_current() && get_current() == '+') {
-                  advance();
-                }
-                builder.exponent_separator(is_negative);
-                base = NumberBase.of(10);
-                builder.insert(enforce_digit(base));
+              else {
+                builder.insert(first_digit.getAsInt());
                 while (has_current()) {
                   if (get_current() == '_') {
                     advance();
@@ -289,25 +336,72 @@ public final class Lexer {
                   }
                 }
               }
-              double value = builder.build_double();
-              tokens.add(new Token.NumberConstant(start, current, value));
             }
-            catch (ArithmeticException cause) {
-              throw source
-                .subject(start, current)
-                .to_diagnostic("error", "Could not lex the number constant!")
-                .to_exception(cause);
+            int exponent_separator =
+              base instanceof NumberBase.PowerOfTwo ? 'p' : 'e';
+            if (has_current()
+              && (get_current() == exponent_separator
+                || get_current() == exponent_separator + 'A' - 'a'))
+            {
+              advance();
+              boolean is_negative = has_current() && get_current() == '-';
+              if (is_negative || has_current() && get_current() == '+') {
+                advance();
+              }
+              builder.exponent_separator(is_negative);
+              base = NumberBase.of(10);
+              builder.insert(enforce_digit(base));
+              while (has_current()) {
+                if (get_current() == '_') {
+                  advance();
+                  builder.insert(enforce_digit(base));
+                }
+                else {
+                  OptionalInt maybe_digit = lex_digit(base);
+                  if (maybe_digit.isEmpty()) { break; }
+                  builder.insert(maybe_digit.getAsInt());
+                }
+              }
             }
-            break;
+            double value = builder.build_double();
+            tokens.add(TokenKind.number_constant, start, current, value);
+          }
+          catch (ArithmeticException cause) {
+            throw source
+              .subject(start, current)
+              .to_diagnostic("error", "Could not lex the number constant!")
+              .to_exception(cause);
           }
-          throw source
-            .subject(start)
-            .to_diagnostic("error", "Unknown character `%c`!", initial)
-            .to_exception();
+          break;
         }
+        throw source
+          .subject(start)
+          .to_diagnostic("error", "Unknown character `%c`!", initial)
+          .to_exception();
       }
     }
-    return new LexedSource(source, tokens);
+  }
+
+  /** Skips the rest of a token that could not be lexed. Adds a placeholder in
+   * place of a malformed constant such that the parser does not report a
+   * missing one. */
+  private void recover() {
+    if (initial == '"') {
+      tokens.add(TokenKind.string_constant, start, current, "");
+      return;
+    }
+    if (!is_digit(initial)) { return; }
+    skip_word();
+    boolean is_color =
+      initial == '0'
+        && current > start + 1
+        && (source.contents.charAt(start + 1) == 'p'
+          || source.contents.charAt(start + 1) == 'P');
+    if (is_color) {
+      tokens.add(TokenKind.color_constant, start, current, 0);
+      return;
+    }
+    tokens.add(TokenKind.number_constant, start, current, 0.0);
   }
 
   /** Takes a digit or throws. */
@@ -356,89 +450,127 @@ public final class Lexer {
   }
 
   /** Lexes a single punctuation. */
-  private void lex_single(IntFunction<Token> lexer_function) {
-    Token token = lexer_function.apply(start);
-    tokens.add(token);
+  private void lex_single(int kind) {
+    tokens.add(kind, start, current, null);
   }
 
   /** Lexes a single or repeated punctuation. */
   private void lex_repeatable(
-    IntFunction<Token> lexer_function,
-    IntFunction<Token> repeated_lexer_function)
+    int kind,
+    int repeated_kind)
   {
     if (has_current() && get_current() == initial) {
       advance();
-      lex_single(repeated_lexer_function);
+      lex_single(repeated_kind);
       return;
     }
-    lex_single(lexer_function);
+    lex_single(kind);
   }
 
   /** Lexes a single or extended punctuation. */
   private void lex_extensible(
-    IntFunction<Token> lexer_function,
-    IntFunction<Token> extended_lexer_function)
+    int kind,
+    int extended_kind)
   {
     if (has_current() && get_current() == '=') {
       advance();
-      lex_single(extended_lexer_function);
+      lex_single(extended_kind);
       return;
     }
-    lex_single(lexer_function);
+    lex_single(kind);
   }
 
   /** Lexes a single, repeated, or extended punctuation. */
   private void lex_repeatable_or_extensible(
-    IntFunction<Token> lexer_function,
-    IntFunction<Token> repeated_lexer_function,
-    IntFunction<Token> extended_lexer_function)
+    int kind,
+    int repeated_kind,
+    int extended_kind)
   {
     if (has_current() && get_current() == initial) {
       advance();
-      lex_single(repeated_lexer_function);
+      lex_single(repeated_kind);
       return;
     }
     if (has_current() && get_current() == '=') {
       advance();
-      lex_single(extended_lexer_function);
+      lex_single(extended_kind);
       return;
     }
-    lex_single(lexer_function);
+    lex_single(kind);
   }
 
   /** Lexes a single, repeated, extended, or repeated and extended
    * punctuation. */
   private void lex_repeatable_and_extensible(
-    IntFunction<Token> lexer_function,
-    IntFunction<Token> repeated_lexer_function,
-    IntFunction<Token> extended_lexer_function,
-    IntFunction<Token> repeated_extended_lexer_function)
+    int kind,
+    int repeated_kind,
+    int extended_kind,
+    int repeated_extended_kind)
   {
     if (has_current() && get_current() == initial) {
       advance();
       if (has_current() && get_current() == '=') {
         advance();
-        lex_single(repeated_extended_lexer_function);
+        lex_single(repeated_extended_kind);
         return;
       }
-      lex_single(repeated_lexer_function);
+      lex_single(repeated_kind);
       return;
     }
     if (has_current() && get_current() == '=') {
       advance();
-      lex_single(extended_lexer_function);
+      lex_single(extended_kind);
       return;
     }
-    lex_single(lexer_function);
+    lex_single(kind);
+  }
+
+  /** Skips over the characters that can be a part of a word. */
+  private void skip_word() {
+    String contents = source.contents;
+    int length = contents.length();
+    while (current != length && is_word_part(contents.charAt(current))) {
+      current++;
+    }
   }
 
-  /** Skips over the currently lexed character. */
+  /** Returns the kind of the keyword that was lexed as a word, or the
+   * identifier kind if the word is not a keyword. Compares the word to the
+   * keywords that start with the same letter in place, without creating a
+   * string for it. */
+  private int keyword_kind() {
+    int[] candidates = keywords_by_initial[initial];
+    if (candidates == null) { return TokenKind.identifier; }
+    int length = current - start;
+    for (int kind : candidates) {
+      String keyword = keywords[kind];
+      if (keyword.length() == length
+        && source.contents.regionMatches(start, keyword, 0, length))
+      {
+        return kind;
+      }
+    }
+    return TokenKind.identifier;
+  }
+
+  /** Skips over the currently lexed character. Takes the characters that
+   * cannot be in a surrogate pair one by one. */
   private void advance() {
-    current = source.contents.offsetByCodePoints(current, 1);
+    String contents = source.contents;
+    char character = contents.charAt(current);
+    current++;
+    if (Character.isHighSurrogate(character)
+      && current != contents.length()
+      && Character.isLowSurrogate(contents.charAt(current)))
+    {
+      current++;
+    }
   }
 
   /** Returns the currently lexed character. */
   private int get_current() {
+    char character = source.contents.charAt(current);
+    if (!Character.isHighSurrogate(character)) { return character; }
     return source.contents.codePointAt(current);
   }
 
@@ -0,0 +1,200 @@
+package hlml.lexer;
+
+/** Identifiers of the token types that are packed into a token stream. Each
+ * kind corresponds to the token record with the same name. */
+public final class TokenKind {
+  /** Kind of the keyword `entrypoint`. */
+  public static final int entrypoint_keyword = 0;
+
+  /** Kind of the keyword `public`. */
+  public static final int public_keyword = 1;
+
+  /** Kind of the keyword `link`. */
+  public static final int link_keyword = 2;
+
+  /** Kind of the keyword `using`. */
+  public static final int using_keyword = 3;
+
+  /** Kind of the keyword `as`. */
+  public static final int as_keyword = 4;
+
+  /** Kind of the keyword `proc`. */
+  public static final int proc_keyword = 5;
+
+  /** Kind of the keyword `const`. */
+  public static final int const_keyword = 6;
+
+  /** Kind of the keyword `var`. */
+  public static final int var_keyword = 7;
+
+  /** Kind of the keyword `if`. */
+  public static final int if_keyword = 8;
+
+  /** Kind of the keyword `else`. */
+  public static final int else_keyword = 9;
+
+  /** Kind of the keyword `while`. */
+  public static final int while_keyword = 10;
+
+  /** Kind of the keyword `break`. */
+  public static final int break_keyword = 11;
+
+  /** Kind of the keyword `continue`. */
+  public static final int continue_keyword = 12;
+
+  /** Kind of the keyword `return`. */
+  public static final int return_keyword = 13;
+
+  /** Kind of the punctuation `{`. */
+  public static final int opening_brace = 14;
+
+  /** Kind of the punctuation `}`. */
+  public static final int closing_brace = 15;
+
+  /** Kind of the punctuation `(`. */
+  public static final int opening_parenthesis = 16;
+
+  /** Kind of the punctuation `)`. */
+  public static final int closing_parenthesis = 17;
+
+  /** Kind of the punctuation `;`. */
+  public static final int semicolon = 18;
+
+  /** Kind of the punctuation `.`. */
+  public static final int dot = 19;
+
+  /** Kind of the punctuation `,`. */
+  public static final int comma = 20;
+
+  /** Kind of the punctuation `~`. */
+  public static final int tilde = 21;
+
+  /** Kind of the punctuation `:`. */
+  public static final int colon = 22;
+
+  /** Kind of the punctuation `::`. */
+  public static final int colon_colon = 23;
+
+  /** Kind of the punctuation `*`. */
+  public static final int star = 24;
+
+  /** Kind of the punctuation `*=`. */
+  public static final int star_equal = 25;
+
+  /** Kind of the punctuation `%`. */
+  public static final int percent = 26;
+
+  /** Kind of the punctuation `%=`. */
+  public static final int percent_equal = 27;
+
+  /** Kind of the punctuation `^`. */
+  public static final int caret = 28;
+
+  /** Kind of the punctuation `^=`. */
+  public static final int caret_equal = 29;
+
+  /** Kind of the punctuation `!`. */
+  public static final int exclamation = 30;
+
+  /** Kind of the punctuation `!=`. */
+  public static final int exclamation_equal = 31;
+
+  /** Kind of the punctuation `+`. */
+  public static final int plus = 32;
+
+  /** Kind of the punctuation `++`. */
+  public static final int plus_plus = 33;
+
+  /** Kind of the punctuation `+=`. */
+  public static final int plus_equal = 34;
+
+  /** Kind of the punctuation `-`. */
+  public static final int minus = 35;
+
+  /** Kind of the punctuation `--`. */
+  public static final int minus_minus = 36;
+
+  /** Kind of the punctuation `-=`. */
+  public static final int minus_equal = 37;
+
+  /** Kind of the punctuation `&`. */
+  public static final int ampersand = 38;
+
+  /** Kind of the punctuation `&&`. */
+  public static final int ampersand_ampersand = 39;
+
+  /** Kind of the punctuation `&=`. */
+  public static final int ampersand_equal = 40;
+
+  /** Kind of the punctuation `|`. */
+  public static final int pipe = 41;
+
+  /** Kind of the punctuation `||`. */
+  public static final int pipe_pipe = 42;
+
+  /** Kind of the punctuation `|=`. */
+  public static final int pipe_equal = 43;
+
+  /** Kind of the punctuation `/`. */
+  public static final int slash = 44;
+
+  /** Kind of the punctuation `//`. */
+  public static final int slash_slash = 45;
+
+  /** Kind of the punctuation `/=`. */
+  public static final int slash_equal = 46;
+
+  /** Kind of the punctuation `//=`. */
+  public static final int slash_slash_equal = 47;
+
+  /** Kind of the punctuation `<`. */
+  public static final int left = 48;
+
+  /** Kind of the punctuation `<<`. */
+  public static final int left_left = 49;
+
+  /** Kind of the punctuation `<=`. */
+  public static final int left_equal = 50;
+
+  /** Kind of the punctuation `<<=`. */
+  public static final int left_left_equal = 51;
+
+  /** Kind of the punctuation `>`. */
+  public static final int right = 52;
+
+  /** Kind of the punctuation `>>`. */
+  public static final int right_right = 53;
+
+  /** Kind of the punctuation `>=`. */
+  public static final int right_equal = 54;
+
+  /** Kind of the punctuation `>>=`. */
+  public static final int right_right_equal = 55;
+
+  /** Kind of the punctuation `=`. */
+  public static final int equal = 56;
+
+  /** Kind of the punctuation `==`. */
+  public static final int equal_equal = 57;
+
+  /** Kind of the punctuation `===`. */
+  public static final int equal_equal_equal = 58;
+
+  /** Kind of any word that refers to a user-defined construct. */
+  public static final int identifier = 59;
+
+  /** Kind of a number constant. */
+  public static final int number_constant = 60;
+
+  /** Kind of a packed color constant. */
+  public static final int color_constant = 61;
+
+  /** Kind of a string constant. */
+  public static final int string_constant = 62;
+
+  /** Number of the token kinds. */
+  public static final int count = 63;
+
+  /** Constructor. */
+  private TokenKind() {}
+}
@@ -0,0 +1,36 @@
+package hlml.lexer;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/** List of token records that are created from a token stream as they are
+ * accessed. */
+final class TokenList extends AbstractList<Token> implements RandomAccess {
+  /** Viewed token stream. */
+  private final TokenStream stream;
+
+  /** Constructor. */
+  TokenList(TokenStream stream) {
+    this.stream = stream;
+  }
+
+  @Override
+  public Token get(int index) {
+    if (index < 0 || index >= stream.size()) {
+      throw new IndexOutOfBoundsException(index);
+    }
+    return stream.token(index);
+  }
+
+  @Override
+  public int size() { return stream.size(); }
+
+  @Override
+  public int indexOf(Object object) {
+    if (!(object instanceof Token token)) { return -1; }
+    return stream.index_of(token);
+  }
+
+  @Override
+  public int lastIndexOf(Object object) { return indexOf(object); }
+}
@@ -0,0 +1,206 @@
+package hlml.lexer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/** Tokens of a source file packed into parallel arrays. Holds the kind, start
+ * and end of each token by its index, and the values of the identifiers and
+ * the constants in a side table. The token records are only created when they
+ * are asked for. */
+public final class TokenStream {
+  /** Returns an empty token stream. */
+  static TokenStream create() {
+    int capacity = 64;
+    return new TokenStream(
+      new int[capacity],
+      new int[capacity],
+      new int[capacity],
+      new Object[capacity]);
+  }
+
+  /** Kinds of the tokens as defined in {@link TokenKind}. */
+  private int[] kinds;
+
+  /** Indices of the tokens' first characters' first bytes. */
+  private int[] starts;
+
+  /** Indices of the first bytes of the characters after the tokens. */
+  private int[] ends;
+
+  /** Texts of the identifiers and values of the constants. Other tokens do not
+   * have an entry. */
+  private Object[] values;
+
+  /** Number of tokens in the stream. */
+  private int size;
+
+  /** Constructor. */
+  private TokenStream(int[] kinds, int[] starts, int[] ends, Object[] values) {
+    this.kinds = kinds;
+    this.starts = starts;
+    this.ends = ends;
+    this.values = values;
+  }
+
+  /** Adds a token to the end of the stream. */
+  void add(int kind, int start, int end, Object value) {
+    if (size == kinds.length) {
+      int capacity = size * 2;
+      kinds = Arrays.copyOf(kinds, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+    kinds[size] = kind;
+    starts[size] = start;
+    ends[size] = end;
+    values[size] = value;
+    size++;
+  }
+
+  /** Returns the number of tokens. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the kind of the token at the given index. */
+  public int kind(int index) {
+    return kinds[index];
+  }
+
+  /** Returns the start of the token at the given index. */
+  public int start(int index) {
+    return starts[index];
+  }
+
+  /** Returns the end of the token at the given index. */
+  public int end(int index) {
+    return ends[index];
+  }
+
+  /** Returns the text of the identifier at the given index. */
+  public String text(int index) {
+    return (String) values[index];
+  }
+
+  /** Returns the value of the number constant at the given index. */
+  public double number_value(int index) {
+    return (Double) values[index];
+  }
+
+  /** Returns the value of the color constant at the given index. */
+  public int color_value(int index) {
+    return (Integer) values[index];
+  }
+
+  /** Returns the value of the string constant at the given index. */
+  public String string_value(int index) {
+    return (String) values[index];
+  }
+
+  /** Creates the record of the token at the given index. */
+  public Token token(int index) {
+    return switch (kinds[index]) {
+      case TokenKind.entrypoint_keyword -> new Token.Entrypoint(starts[index]);
+      case TokenKind.public_keyword -> new Token.Public(starts[index]);
+      case TokenKind.link_keyword -> new Token.Link(starts[index]);
+      case TokenKind.using_keyword -> new Token.Using(starts[index]);
+      case TokenKind.as_keyword -> new Token.As(starts[index]);
+      case TokenKind.proc_keyword -> new Token.Proc(starts[index]);
+      case TokenKind.const_keyword -> new Token.Const(starts[index]);
+      case TokenKind.var_keyword -> new Token.Var(starts[index]);
+      case TokenKind.if_keyword -> new Token.If(starts[index]);
+      case TokenKind.else_keyword -> new Token.Else(starts[index]);
+      case TokenKind.while_keyword -> new Token.While(starts[index]);
+      case TokenKind.break_keyword -> new Token.Break(starts[index]);
+      case TokenKind.continue_keyword -> new Token.Continue(starts[index]);
+      case TokenKind.return_keyword -> new Token.Return(starts[index]);
+      case TokenKind.opening_brace -> new Token.OpeningBrace(starts[index]);
+      case TokenKind.closing_brace -> new Token.ClosingBrace(starts[index]);
+      case TokenKind.opening_parenthesis ->
+        new Token.OpeningParenthesis(starts[index]);
+      case TokenKind.closing_parenthesis ->
+        new Token.ClosingParenthesis(starts[index]);
+      case TokenKind.semicolon -> new Token.Semicolon(starts[index]);
+      case TokenKind.dot -> new Token.Dot(starts[index]);
+      case TokenKind.comma -> new Token.Comma(starts[index]);
+      case TokenKind.tilde -> new Token.Tilde(starts[index]);
+      case TokenKind.colon -> new Token.Colon(starts[index]);
+      case TokenKind.colon_colon -> new Token.ColonColon(starts[index]);
+      case TokenKind.star -> new Token.Star(starts[index]);
+      case TokenKind.star_equal -> new Token.StarEqual(starts[index]);
+      case TokenKind.percent -> new Token.Percent(starts[index]);
+      case TokenKind.percent_equal -> new Token.PercentEqual(starts[index]);
+      case TokenKind.caret -> new Token.Caret(starts[index]);
+      case TokenKind.caret_equal -> new Token.CaretEqual(starts[index]);
+      case TokenKind.exclamation -> new Token.Exclamation(starts[index]);
+      case TokenKind.exclamation_equal ->
+        new Token.ExclamationEqual(starts[index]);
+      case TokenKind.plus -> new Token.Plus(starts[index]);
+      case TokenKind.plus_plus -> new Token.PlusPlus(starts[index]);
+      case TokenKind.plus_equal -> new Token.PlusEqual(starts[index]);
+      case TokenKind.minus -> new Token.Minus(starts[index]);
+      case TokenKind.minus_minus -> new Token.MinusMinus(starts[index]);
+      case TokenKind.minus_equal -> new Token.MinusEqual(starts[index]);
+      case TokenKind.ampersand -> new Token.Ampersand(starts[index]);
+      case TokenKind.ampersand_ampersand ->
+        new Token.AmpersandAmpersand(starts[index]);
+      case TokenKind.ampersand_equal -> new Token.AmpersandEqual(starts[index]);
+      case TokenKind.pipe -> new Token.Pipe(starts[index]);
+      case TokenKind.pipe_pipe -> new Token.PipePipe(starts[index]);
+      case TokenKind.pipe_equal -> new Token.PipeEqual(starts[index]);
+      case TokenKind.slash -> new Token.Slash(starts[index]);
+      case TokenKind.slash_slash -> new Token.SlashSlash(starts[index]);
+      case TokenKind.slash_equal -> new Token.SlashEqual(starts[index]);
+      case TokenKind.slash_slash_equal ->
+        new Token.SlashSlashEqual(starts[index]);
+      case TokenKind.left -> new Token.Left(starts[index]);
+      case TokenKind.left_left -> new Token.LeftLeft(starts[index]);
+      case TokenKind.left_equal -> new Token.LeftEqual(starts[index]);
+      case TokenKind.left_left_equal -> new Token.LeftLeftEqual(starts[index]);
+      case TokenKind.right -> new Token.Right(starts[index]);
+      case TokenKind.right_right -> new Token.RightRight(starts[index]);
+      case TokenKind.right_equal -> new Token.RightEqual(starts[index]);
+      case TokenKind.right_right_equal ->
+        new Token.RightRightEqual(starts[index]);
+      case TokenKind.equal -> new Token.Equal(starts[index]);
+      case TokenKind.equal_equal -> new Token.EqualEqual(starts[index]);
+      case TokenKind.equal_equal_equal ->
+        new Token.EqualEqualEqual(starts[index]);
+      case TokenKind.identifier ->
+        new Token.Identifier(starts[index], (String) values[index]);
+      case TokenKind.number_constant ->
+        new Token.NumberConstant(
+          starts[index],
+          ends[index],
+          (Double) values[index]);
+      case TokenKind.color_constant ->
+        new Token.ColorConstant(
+          starts[index],
+          ends[index],
+          (Integer) values[index]);
+      case TokenKind.string_constant ->
+        new Token.StringConstant(
+          starts[index],
+          ends[index],
+          (String) values[index]);
+      default ->
+        throw new IllegalStateException(
+          "Unknown token kind `%d`!".formatted(kinds[index]));
+    };
+  }
+
+  /** Returns the index of the given token in the stream, or -1 if it is not in
+   * the stream. Finds the token by its start, as the tokens are ordered and do
+   * not overlap. */
+  public int index_of(Token token) {
+    int index = Arrays.binarySearch(starts, 0, size, token.start());
+    if (index < 0 || !token(index).equals(token)) { return -1; }
+    return index;
+  }
+
+  /** Returns a view of the stream as a list of token records. */
+  public List<Token> as_list() {
+    return new TokenList(this);
+  }
+}
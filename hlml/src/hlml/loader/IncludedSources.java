@@ -0,0 +1,37 @@
+package hlml.loader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import hlml.Source;
+
+/** Sources that are read from the files in the include directories. */
+record IncludedSources(List<Path> includes) implements SourceProvider {
+  @Override
+  public Optional<Path> locate(String name) {
+    String full_name = name + Source.extension;
+    for (Path site : includes) {
+      Path file = site.resolve(full_name);
+      if (Files.exists(file)) { return Optional.of(file); }
+    }
+    return Optional.empty();
+  }
+
+  @Override
+  public LoadedSource load(Path file) {
+    return Loader.load(new Source(file));
+  }
+
+  @Override
+  public String locations() {
+    return "in the fallowing directories: `%s`"
+      .formatted(
+        includes
+          .stream()
+          .map(Path::toAbsolutePath)
+          .map(Path::normalize)
+          .toList());
+  }
+}
@@ -4,6 +4,7 @@ import java.nio.file.Path;
 
 import hlml.Source;
 import hlml.lexer.Token;
+import hlml.reporter.LineIndex;
 import hlml.reporter.Subject;
 
 /** Raw representation of the source file. */
@@ -11,15 +12,19 @@ public class LoadedSource extends Source {
   /** Contents of the source file when it was last read. */
   public final String contents;
 
+  /** Offsets of the lines in the contents. */
+  public final LineIndex lines;
+
   /** Constructs. */
-  public LoadedSource(Path path, String contents) {
+  public LoadedSource(Path path, String contents, LineIndex lines) {
     super(path);
     this.contents = contents;
+    this.lines = lines;
   }
 
   /** Constructs. */
   public LoadedSource(Source parent, String contents) {
-    this(parent.path, contents);
+    this(parent.path, contents, LineIndex.of(contents));
   }
 
   /** Returns a token's text. */
@@ -39,6 +44,6 @@ public class LoadedSource extends Source {
 
   /** Returns a subject as a range of characters in this source file. */
   public Subject subject(int start, int end) {
-    return Subject.of(path, contents, start, end);
+    return Subject.of(path, lines, start, end);
   }
 }
@@ -0,0 +1,31 @@
+package hlml.loader;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/** Finds the sources by their names and loads them. */
+public interface SourceProvider {
+  /** Returns a provider that looks for the source files in the given
+   * directories in order. */
+  static SourceProvider of(List<Path> includes) {
+    return new IncludedSources(List.copyOf(includes));
+  }
+
+  /** Returns a provider of the given contents by the names of their sources,
+   * which are never read from or written to the file system. */
+  static SourceProvider of(Map<String, ? extends CharSequence> contents) {
+    return VirtualSources.of(contents);
+  }
+
+  /** Returns the file of the source with the given name if it is there. */
+  Optional<Path> locate(String name);
+
+  /** Loads the source at a file that was located. */
+  LoadedSource load(Path file);
+
+  /** Returns a description of where the sources are looked for, which is
+   * reported when a source is not found. */
+  String locations();
+}
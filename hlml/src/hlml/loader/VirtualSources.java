@@ -0,0 +1,44 @@
+package hlml.loader;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+import hlml.Source;
+
+/** Sources whose contents are given in memory. Each source is located at a
+ * relative path made of its name, which is only used for reporting. */
+record VirtualSources(Map<String, String> contents) implements SourceProvider {
+  /** Returns the sources with a copy of the given contents. */
+  static VirtualSources of(Map<String, ? extends CharSequence> contents) {
+    Map<String, String> copied = new HashMap<>();
+    for (Map.Entry<String, ? extends CharSequence> source : contents
+      .entrySet())
+    {
+      copied.put(source.getKey(), source.getValue().toString());
+    }
+    return new VirtualSources(Map.copyOf(copied));
+  }
+
+  @Override
+  public Optional<Path> locate(String name) {
+    if (!contents.containsKey(name)) { return Optional.empty(); }
+    Path file = Path.of(name + Source.extension);
+    if (file.getNameCount() != 1) { return Optional.empty(); }
+    return Optional.of(file);
+  }
+
+  @Override
+  public LoadedSource load(Path file) {
+    Source source = new Source(file);
+    return new LoadedSource(source, contents.get(source.name()));
+  }
+
+  @Override
+  public String locations() {
+    return "in the given sources: `%s`"
+      .formatted(new TreeSet<>(contents.keySet()));
+  }
+}
@@ -1,10 +1,16 @@
 package hlml.parser;
 
+import java.lang.reflect.RecordComponent;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 import hlml.lexer.LexedSource;
-import hlml.lexer.Token;
+import hlml.lexer.TokenStream;
+import hlml.reporter.Diagnostic;
+import hlml.reporter.LineIndex;
 
 /** Syntactical representation of a source file. */
 public class ParsedSource extends LexedSource {
@@ -15,15 +21,55 @@ public class ParsedSource extends LexedSource {
   public ParsedSource(
     Path path,
     String contents,
-    List<Token> tokens,
+    LineIndex lines,
+    TokenStream token_stream,
+    List<Diagnostic> diagnostics,
     List<Node.Declaration> declarations)
   {
-    super(path, contents, tokens);
+    super(path, contents, lines, token_stream, diagnostics);
     this.declarations = declarations;
   }
 
-  /** Constructs. */
-  public ParsedSource(LexedSource parent, List<Node.Declaration> declarations) {
-    this(parent.path, parent.contents, parent.tokens, declarations);
+  /** Constructs. The given diagnostics include the parent's. */
+  public ParsedSource(
+    LexedSource parent,
+    List<Diagnostic> diagnostics,
+    List<Node.Declaration> declarations)
+  {
+    this(
+      parent.path,
+      parent.contents,
+      parent.lines,
+      parent.token_stream,
+      diagnostics,
+      declarations);
+  }
+
+  /** Returns the number of nodes in the declarations. Finds them through the
+   * components of the records, so it is only meant for reporting. */
+  public int node_count() {
+    int count = 0;
+    List<Object> remaining = new ArrayList<>(declarations);
+    while (!remaining.isEmpty()) {
+      Object object = remaining.remove(remaining.size() - 1);
+      if (object == null) { continue; }
+      if (object instanceof Node) { count++; }
+      switch (object) {
+        case Collection<?> c -> remaining.addAll(c);
+        case Optional<?> o -> o.ifPresent(remaining::add);
+        case Record r -> {
+          for (RecordComponent component : r.getClass().getRecordComponents()) {
+            try {
+              remaining.add(component.getAccessor().invoke(r));
+            }
+            catch (ReflectiveOperationException cause) {
+              throw new IllegalStateException(cause);
+            }
+          }
+        }
+        default -> {}
+      }
+    }
+    return count;
   }
 }
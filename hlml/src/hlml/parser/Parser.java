@@ -3,13 +3,16 @@ package hlml.parser;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.function.Function;
-import java.util.function.Supplier;
 
 import hlml.lexer.LexedSource;
 import hlml.lexer.Token;
+import hlml.lexer.TokenKind;
+import hlml.reporter.Diagnostic;
+import hlml.reporter.DiagnosticException;
 
-/** Transforms tokens to a list of declarations. */
+/** Transforms tokens to a list of declarations. Predicts the parsed construct
+ * from the kind of the current token, so it never backtracks and only creates
+ * the nodes it returns. */
 public final class Parser {
   /** Parses a source file. Returns the declarations in the file. */
   public static ParsedSource parse(LexedSource source) {
@@ -17,12 +20,51 @@ public final class Parser {
     return parser.parse();
   }
 
+  /** Parsers of the assignment statements by the kind of their operator. */
+  private static final AssignmentParser[] assignment_parsers =
+    new AssignmentParser[TokenKind.count];
+
+  static {
+    assignment_parsers[TokenKind.equal] =
+      new AssignmentParser(Node.DirectlyAssign::new, "assign");
+    assignment_parsers[TokenKind.star_equal] =
+      new AssignmentParser(Node.MultiplyAssign::new, "multiply assign");
+    assignment_parsers[TokenKind.slash_equal] =
+      new AssignmentParser(Node.DivideAssign::new, "divide assign");
+    assignment_parsers[TokenKind.slash_slash_equal] =
+      new AssignmentParser(
+        Node.DivideIntegerAssign::new,
+        "divide integer assign");
+    assignment_parsers[TokenKind.percent_equal] =
+      new AssignmentParser(Node.ModulusAssign::new, "modulus assign");
+    assignment_parsers[TokenKind.plus_equal] =
+      new AssignmentParser(Node.AddAssign::new, "add assign");
+    assignment_parsers[TokenKind.minus_equal] =
+      new AssignmentParser(Node.SubtractAssign::new, "subtract assign");
+    assignment_parsers[TokenKind.left_left_equal] =
+      new AssignmentParser(Node.ShiftLeftAssign::new, "shift left assign");
+    assignment_parsers[TokenKind.right_right_equal] =
+      new AssignmentParser(Node.ShiftRightAssign::new, "shift right assign");
+    assignment_parsers[TokenKind.ampersand_equal] =
+      new AssignmentParser(Node.AndBitwiseAssign::new, "and bitwise assign");
+    assignment_parsers[TokenKind.caret_equal] =
+      new AssignmentParser(Node.XorBitwiseAssign::new, "xor bitwise assign");
+    assignment_parsers[TokenKind.pipe_equal] =
+      new AssignmentParser(Node.OrBitwiseAssign::new, "or bitwise assign");
+  }
+
   /** Source file that is parsed. */
   private LexedSource source;
 
   /** Index of the currently parsed token. */
   private int current;
 
+  /** Problems that were found in the source file. */
+  private List<Diagnostic> diagnostics;
+
+  /** Whether a problem was found at the end of the file. */
+  private boolean reported_end;
+
   /** Constructor. */
   private Parser(LexedSource source) {
     this.source = source;
@@ -31,864 +73,828 @@ public final class Parser {
   /** Parses the source file. */
   private ParsedSource parse() {
     current = 0;
+    diagnostics = new ArrayList<>(source.diagnostics);
+    reported_end = false;
     List<Node.Declaration> declarations = new ArrayList<Node.Declaration>();
-    while (current != source.tokens.size()) {
-      Node.Declaration declaration =
-        expect(this::parse_declaration, "top level declaration");
-      declarations.add(declaration);
+    while (current != source.token_stream.size()) {
+      int first = current;
+      try {
+        Node.Declaration declaration = parse_declaration();
+        declarations.add(declaration);
+      }
+      catch (DiagnosticException cause) {
+        report(cause.diagnostic);
+        synchronize(first, true);
+      }
+    }
+    return new ParsedSource(source, diagnostics, declarations);
+  }
+
+  /** Records the diagnostic of a construct that could not be parsed. Only
+   * records the first one at the end of the file, as the constructs that
+   * enclose it are unfinished for the same reason. */
+  private void report(Diagnostic diagnostic) {
+    if (current == source.token_stream.size()) {
+      if (reported_end) { return; }
+      reported_end = true;
+    }
+    diagnostics.add(diagnostic);
+  }
+
+  /** Skips the tokens of a construct that could not be parsed, which started
+   * at the given token. Stops after a `;` or after the `}` that closes the
+   * braces the construct opened, or before a keyword that starts the next
+   * construct. A stray `}` is skipped at the top level, and left to the
+   * enclosing block otherwise. */
+  private void synchronize(int first, boolean is_top_level) {
+    int depth = 0;
+    for (int i = first; i != current; i++) {
+      switch (source.token_stream.kind(i)) {
+        case TokenKind.opening_brace -> depth++;
+        case TokenKind.closing_brace -> depth = Math.max(depth - 1, 0);
+        default -> {}
+      }
+    }
+    while (current != source.token_stream.size()) {
+      if (depth == 0 && current != first && starts_construct(is_top_level)) {
+        return;
+      }
+      switch (current_kind()) {
+        case TokenKind.semicolon -> {
+          current++;
+          if (depth == 0) { return; }
+        }
+        case TokenKind.opening_brace -> {
+          current++;
+          depth++;
+        }
+        case TokenKind.closing_brace -> {
+          if (depth == 0 && !is_top_level) { return; }
+          current++;
+          if (depth <= 1) { return; }
+          depth--;
+        }
+        default -> current++;
+      }
+    }
+  }
+
+  /** Returns whether the current token is a keyword that starts a
+   * declaration at the top level or a statement in a block. */
+  private boolean starts_construct(boolean is_top_level) {
+    if (is_top_level) {
+      return current_kind() == TokenKind.entrypoint_keyword
+        || current_kind() == TokenKind.public_keyword
+        || is_definition();
     }
-    return new ParsedSource(source, declarations);
+    return switch (current_kind()) {
+      case TokenKind.if_keyword, TokenKind.while_keyword,
+        TokenKind.break_keyword, TokenKind.continue_keyword,
+        TokenKind.return_keyword, TokenKind.var_keyword ->
+        true;
+      default -> false;
+    };
   }
 
   /** Parses a declaration. */
-  private Optional<Node.Declaration> parse_declaration() {
-    return first_of(this::parse_entrypoint, this::parse_definition);
-  }
-
-  /** Parses a entrypoint. */
-  private Optional<Node.Entrypoint> parse_entrypoint() {
-    if (parse_token(Token.Entrypoint.class).isEmpty()) {
-      return Optional.empty();
-    }
-    Node.Statement body =
-      expect(this::parse_block, "body of the entrypoint declaration");
-    Node.Entrypoint entrypoint = new Node.Entrypoint(body);
-    return Optional.of(entrypoint);
-  }
-
-  /** Parses a definition. */
-  private Optional<Node.Definition> parse_definition() {
-    Optional<Token.Public> modifier = parse_token(Token.Public.class);
-    if (modifier.isPresent()) {
-      return Optional
-        .of(
-          expect(
-            () -> first_of(
-              () -> parse_link(modifier),
-              () -> parse_using(modifier),
-              () -> parse_proc(modifier),
-              () -> parse_const(modifier),
-              () -> parse_global_var(modifier)),
-            "a definition"));
-    }
-    return first_of(
-      () -> parse_link(modifier),
-      () -> parse_using(modifier),
-      () -> parse_proc(modifier),
-      () -> parse_const(modifier),
-      () -> parse_global_var(modifier));
+  private Node.Declaration parse_declaration() {
+    if (parse_token(TokenKind.entrypoint_keyword)) {
+      Node.Statement body =
+        expect_block("body of the entrypoint declaration");
+      return new Node.Entrypoint(body);
+    }
+    if (current_kind() == TokenKind.public_keyword) {
+      Optional<Token.Public> modifier =
+        Optional.of(new Token.Public(source.token_stream.start(current)));
+      current++;
+      if (!is_definition()) { throw unexpected("a definition"); }
+      return parse_definition(modifier);
+    }
+    if (!is_definition()) { throw unexpected("top level declaration"); }
+    return parse_definition(Optional.empty());
+  }
+
+  /** Returns whether the current token starts a definition after the
+   * visibility modifier. */
+  private boolean is_definition() {
+    return switch (current_kind()) {
+      case TokenKind.link_keyword, TokenKind.using_keyword,
+        TokenKind.proc_keyword, TokenKind.const_keyword,
+        TokenKind.var_keyword ->
+        true;
+      default -> false;
+    };
+  }
+
+  /** Parses a definition after the visibility modifier. */
+  private Node.Definition parse_definition(Optional<Token.Public> modifier) {
+    return switch (current_kind()) {
+      case TokenKind.link_keyword -> parse_link(modifier);
+      case TokenKind.using_keyword -> parse_using(modifier);
+      case TokenKind.proc_keyword -> parse_proc(modifier);
+      case TokenKind.const_keyword -> parse_const(modifier);
+      default -> parse_global_var(modifier);
+    };
   }
 
   /** Parses a link. */
-  private Optional<Node.Link> parse_link(Optional<Token.Public> modifier) {
-    if (parse_token(Token.Link.class).isEmpty()) { return Optional.empty(); }
+  private Node.Link parse_link(Optional<Token.Public> modifier) {
+    current++;
     Token.Identifier building =
-      expect_token(
-        Token.Identifier.class,
-        "building name of the link definition");
+      expect_identifier("building name of the link definition");
     Optional<Token.Identifier> alias = Optional.empty();
-    if (parse_token(Token.As.class).isPresent()) {
+    if (parse_token(TokenKind.as_keyword)) {
       alias =
         Optional
-          .of(
-            expect_token(
-              Token.Identifier.class,
-              "alias identifier of the link definition"));
+          .of(expect_identifier("alias identifier of the link definition"));
     }
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the alias definition");
-    Node.Link link = new Node.Link(modifier, building, alias);
-    return Optional.of(link);
+    return new Node.Link(modifier, building, alias);
   }
 
   /** Parses a using. */
-  private Optional<Node.Using> parse_using(Optional<Token.Public> modifier) {
-    if (parse_token(Token.Using.class).isEmpty()) { return Optional.empty(); }
-    Node.Mention used =
-      expect(this::parse_mention, "mention to used of the alias definition");
+  private Node.Using parse_using(Optional<Token.Public> modifier) {
+    current++;
+    ensure_token(
+      TokenKind.identifier,
+      "mention to used of the alias definition");
+    Node.Mention used = parse_mention();
     Optional<Token.Identifier> alias = Optional.empty();
-    if (parse_token(Token.As.class).isPresent()) {
+    if (parse_token(TokenKind.as_keyword)) {
       alias =
         Optional
-          .of(
-            expect_token(
-              Token.Identifier.class,
-              "alias identifier of the alias definition"));
+          .of(expect_identifier("alias identifier of the alias definition"));
     }
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the alias definition");
-    Node.Using using = new Node.Using(modifier, used, alias);
-    return Optional.of(using);
+    return new Node.Using(modifier, used, alias);
   }
 
   /** Parses a proc. */
-  private Optional<Node.Proc> parse_proc(Optional<Token.Public> modifier) {
-    if (parse_token(Token.Proc.class).isEmpty()) { return Optional.empty(); }
+  private Node.Proc parse_proc(Optional<Token.Public> modifier) {
+    current++;
     Token.Identifier identifier =
-      expect_token(
-        Token.Identifier.class,
-        "identifier of the procedure declaration");
+      expect_identifier("identifier of the procedure declaration");
     expect_token(
-      Token.OpeningParenthesis.class,
+      TokenKind.opening_parenthesis,
       "parameter list opener `(` of the procedure declaration");
-    List<Node.Parameter> parameters = separated_of(this::parse_parameter);
+    List<Node.Parameter> parameters = new ArrayList<>();
+    while (current_kind() == TokenKind.identifier) {
+      parameters.add(parse_parameter());
+      if (!parse_token(TokenKind.comma)) { break; }
+    }
     expect_token(
-      Token.ClosingParenthesis.class,
+      TokenKind.closing_parenthesis,
       "parameter list closer `)` of the procedure declaration");
-    Node.Statement body =
-      expect(this::parse_block, "body of the procedure declaration");
-    Node.Proc proc = new Node.Proc(modifier, identifier, parameters, body);
-    return Optional.of(proc);
+    Node.Statement body = expect_block("body of the procedure declaration");
+    return new Node.Proc(modifier, identifier, parameters, body);
   }
 
   /** Parses a parameter. */
-  private Optional<Node.Parameter> parse_parameter() {
-    Optional<Token.Identifier> identifier = parse_token(Token.Identifier.class);
-    if (identifier.isEmpty()) { return Optional.empty(); }
-    boolean in_out = parse_token(Token.Ampersand.class).isPresent();
-    Node.Parameter parameter = new Node.Parameter(identifier.get(), in_out);
-    return Optional.of(parameter);
+  private Node.Parameter parse_parameter() {
+    Token.Identifier identifier = parse_identifier();
+    boolean in_out = parse_token(TokenKind.ampersand);
+    return new Node.Parameter(identifier, in_out);
   }
 
   /** Parses a const. */
-  private Optional<Node.Const> parse_const(Optional<Token.Public> modifier) {
-    if (parse_token(Token.Const.class).isEmpty()) { return Optional.empty(); }
+  private Node.Const parse_const(Optional<Token.Public> modifier) {
+    current++;
     Token.Identifier identifier =
-      expect_token(
-        Token.Identifier.class,
-        "identifier of the constant declaration");
+      expect_identifier("identifier of the constant declaration");
     expect_token(
-      Token.Equal.class,
+      TokenKind.equal,
       "value separator `=` of the constant declaration");
     Node.Expression initial_value =
-      expect(this::parse_expression, "value of the constant declaration");
+      expect_expression("value of the constant declaration");
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the constant declaration");
-    Node.Const var = new Node.Const(modifier, identifier, initial_value);
-    return Optional.of(var);
+    return new Node.Const(modifier, identifier, initial_value);
   }
 
   /** Parses a global variable. */
-  private Optional<Node.GlobalVar> parse_global_var(
-    Optional<Token.Public> modifier)
-  {
-    if (parse_token(Token.Var.class).isEmpty()) { return Optional.empty(); }
+  private Node.GlobalVar parse_global_var(Optional<Token.Public> modifier) {
+    current++;
     Token.Identifier identifier =
-      expect_token(
-        Token.Identifier.class,
-        "identifier of the global variable declaration");
+      expect_identifier("identifier of the global variable declaration");
     Optional<Node.Expression> initial_value = Optional.empty();
-    if (parse_token(Token.Equal.class).isPresent()) {
+    if (parse_token(TokenKind.equal)) {
       Node.Expression given_initial_value =
-        expect(
-          this::parse_expression,
-          "initial value of the global variable declaration");
+        expect_expression("initial value of the global variable declaration");
       initial_value = Optional.of(given_initial_value);
     }
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the global variable declaration");
-    Node.GlobalVar var =
-      new Node.GlobalVar(modifier, identifier, initial_value);
-    return Optional.of(var);
+    return new Node.GlobalVar(modifier, identifier, initial_value);
+  }
+
+  /** Returns whether the current token starts a statement. */
+  private boolean is_statement() {
+    return switch (current_kind()) {
+      case TokenKind.opening_brace, TokenKind.if_keyword,
+        TokenKind.while_keyword, TokenKind.break_keyword,
+        TokenKind.continue_keyword, TokenKind.return_keyword,
+        TokenKind.var_keyword ->
+        true;
+      default -> is_expression();
+    };
+  }
+
+  /** Parses a statement, which must start at the current token. */
+  private Node.Statement parse_statement() {
+    return switch (current_kind()) {
+      case TokenKind.opening_brace -> parse_block();
+      case TokenKind.if_keyword -> parse_if();
+      case TokenKind.while_keyword -> parse_while();
+      case TokenKind.break_keyword -> parse_break();
+      case TokenKind.continue_keyword -> parse_continue();
+      case TokenKind.return_keyword -> parse_return();
+      case TokenKind.var_keyword -> parse_local_var();
+      case TokenKind.identifier -> {
+        if (next_kind(1) == TokenKind.colon
+          && next_kind(2) == TokenKind.while_keyword)
+        {
+          yield parse_while();
+        }
+        yield parse_affect();
+      }
+      default -> parse_affect();
+    };
   }
 
-  /** Parses a statement. */
-  private Optional<Node.Statement> parse_statement() {
-    return first_of(
-      this::parse_block,
-      this::parse_if,
-      this::parse_while,
-      this::parse_break,
-      this::parse_continue,
-      this::parse_return,
-      this::parse_local_var,
-      this::parse_affect);
+  /** Ensures that a block starts at the current token and parses it.
+   * Otherwise throws a diagnostic with the given explanation. */
+  private Node.Block expect_block(String block_explanation) {
+    ensure_token(TokenKind.opening_brace, block_explanation);
+    return parse_block();
   }
 
   /** Parses a block. */
-  private Optional<Node.Block> parse_block() {
+  private Node.Block parse_block() {
     int first = current;
-    if (parse_token(Token.OpeningBrace.class).isEmpty()) {
-      return Optional.empty();
+    current++;
+    List<Node.Statement> body = new ArrayList<>();
+    while (is_statement()) {
+      int statement_first = current;
+      try {
+        body.add(parse_statement());
+      }
+      catch (DiagnosticException cause) {
+        report(cause.diagnostic);
+        synchronize(statement_first, false);
+      }
     }
-    List<Node.Statement> body = repeats_of(this::parse_statement);
     expect_token(
-      Token.ClosingBrace.class,
+      TokenKind.closing_brace,
       "inner statement list closer `}` of the block statement");
-    Node.Block block = new Node.Block(first, body);
-    return Optional.of(block);
+    return new Node.Block(first, body);
   }
 
   /** Parses an if statement. */
-  private Optional<Node.If> parse_if() {
-    if (parse_token(Token.If.class).isEmpty()) { return Optional.empty(); }
-    List<Node.LocalVar> variables = repeats_of(this::parse_local_var);
+  private Node.If parse_if() {
+    current++;
+    List<Node.LocalVar> variables = parse_local_vars();
     Node.Expression condition =
-      expect(this::parse_expression, "condition of the if statement");
+      expect_expression("condition of the if statement");
     Node.Statement true_branch =
-      expect(this::parse_block, "true branch of the if statement");
+      expect_block("true branch of the if statement");
     Optional<Node.Statement> false_branch = Optional.empty();
-    if (parse_token(Token.Else.class).isPresent()) {
-      false_branch =
-        Optional
-          .of(
-            expect(
-              () -> first_of(this::parse_block, this::parse_if),
-              "false branch of the if statement"));
+    if (parse_token(TokenKind.else_keyword)) {
+      Node.Statement given_false_branch = switch (current_kind()) {
+        case TokenKind.opening_brace -> parse_block();
+        case TokenKind.if_keyword -> parse_if();
+        default -> throw unexpected("false branch of the if statement");
+      };
+      false_branch = Optional.of(given_false_branch);
     }
-    Node.If if_statement =
-      new Node.If(variables, condition, true_branch, false_branch);
-    return Optional.of(if_statement);
+    return new Node.If(variables, condition, true_branch, false_branch);
   }
 
-  /** Parses a while statement. */
-  private Optional<Node.While> parse_while() {
-    int first = current;
-    Optional<Token.Identifier> label = parse_token(Token.Identifier.class);
-    if (label.isPresent() && parse_token(Token.Colon.class).isEmpty()
-      || parse_token(Token.While.class).isEmpty())
-    {
-      current = first;
-      return Optional.empty();
-    }
-    List<Node.LocalVar> variables = repeats_of(this::parse_local_var);
+  /** Parses a while statement, which starts at the label or the keyword. */
+  private Node.While parse_while() {
+    Optional<Token.Identifier> label = Optional.empty();
+    if (current_kind() == TokenKind.identifier) {
+      label = Optional.of(parse_identifier());
+      current++;
+    }
+    current++;
+    List<Node.LocalVar> variables = parse_local_vars();
     Node.Expression condition =
-      expect(this::parse_expression, "condition of the while statement");
+      expect_expression("condition of the while statement");
     Optional<Node.Statement> interleaved = Optional.empty();
-    if (parse_token(Token.Semicolon.class).isPresent()) {
-      interleaved =
-        Optional
-          .of(
-            expect(
-              this::parse_unterminated_affect,
-              "interleaved of the while statement"));
-    }
-    Node.Statement loop =
-      expect(this::parse_statement, "loop of the while statement");
-    Node.While while_statement =
-      new Node.While(
-        label,
-        variables,
-        condition,
-        interleaved,
-        loop);
-    return Optional.of(while_statement);
+    if (parse_token(TokenKind.semicolon)) {
+      ensure_expression("interleaved of the while statement");
+      interleaved = Optional.of(parse_unterminated_affect());
+    }
+    if (!is_statement()) { throw unexpected("loop of the while statement"); }
+    Node.Statement loop = parse_statement();
+    return new Node.While(label, variables, condition, interleaved, loop);
   }
 
   /** Parses a break statement. */
-  private Optional<Node.Break> parse_break() {
+  private Node.Break parse_break() {
     int first = current;
-    if (parse_token(Token.Break.class).isEmpty()) { return Optional.empty(); }
-    Optional<Token.Identifier> label = parse_token(Token.Identifier.class);
+    current++;
+    Optional<Token.Identifier> label = parse_label();
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the break statement");
-    Node.Break break_statement = new Node.Break(first, label);
-    return Optional.of(break_statement);
+    return new Node.Break(first, label);
   }
 
   /** Parses a continue statement. */
-  private Optional<Node.Continue> parse_continue() {
+  private Node.Continue parse_continue() {
     int first = current;
-    if (parse_token(Token.Continue.class).isEmpty()) {
-      return Optional.empty();
-    }
-    Optional<Token.Identifier> label = parse_token(Token.Identifier.class);
+    current++;
+    Optional<Token.Identifier> label = parse_label();
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the continue statement");
-    Node.Continue continue_statement = new Node.Continue(first, label);
-    return Optional.of(continue_statement);
+    return new Node.Continue(first, label);
+  }
+
+  /** Parses the label of a break or continue statement if there is one. */
+  private Optional<Token.Identifier> parse_label() {
+    if (current_kind() != TokenKind.identifier) { return Optional.empty(); }
+    return Optional.of(parse_identifier());
   }
 
   /** Parses a return statement. */
-  private Optional<Node.Return> parse_return() {
+  private Node.Return parse_return() {
     int first = current;
-    if (parse_token(Token.Return.class).isEmpty()) { return Optional.empty(); }
-    Optional<Node.Expression> value = parse_expression();
+    current++;
+    Optional<Node.Expression> value = Optional.empty();
+    if (is_expression()) { value = Optional.of(parse_expression()); }
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the return statement");
-    Node.Return return_statement = new Node.Return(first, value);
-    return Optional.of(return_statement);
+    return new Node.Return(first, value);
+  }
+
+  /** Parses the local variables that are declared one after another. */
+  private List<Node.LocalVar> parse_local_vars() {
+    if (current_kind() != TokenKind.var_keyword) { return List.of(); }
+    List<Node.LocalVar> variables = new ArrayList<>();
+    while (current_kind() == TokenKind.var_keyword) {
+      variables.add(parse_local_var());
+    }
+    return variables;
   }
 
   /** Parses a local variable. */
-  private Optional<Node.LocalVar> parse_local_var() {
-    if (parse_token(Token.Var.class).isEmpty()) { return Optional.empty(); }
+  private Node.LocalVar parse_local_var() {
+    current++;
     Token.Identifier identifier =
-      expect_token(
-        Token.Identifier.class,
-        "identifier of the local variable declaration");
+      expect_identifier("identifier of the local variable declaration");
     Optional<Node.Expression> initial_value = Optional.empty();
-    if (parse_token(Token.Equal.class).isPresent()) {
+    if (parse_token(TokenKind.equal)) {
       Node.Expression given_initial_value =
-        expect(
-          this::parse_expression,
-          "initial value of the local variable declaration");
+        expect_expression("initial value of the local variable declaration");
       initial_value = Optional.of(given_initial_value);
     }
     expect_token(
-      Token.Semicolon.class,
+      TokenKind.semicolon,
       "terminator `;` of the local variable declaration");
-    Node.LocalVar var = new Node.LocalVar(identifier, initial_value);
-    return Optional.of(var);
+    return new Node.LocalVar(identifier, initial_value);
   }
 
   /** Parses an affect statement. */
-  private Optional<Node.Affect> parse_affect() {
-    Optional<Node.Affect> affect = parse_unterminated_affect();
-    if (affect.isPresent()) {
-      expect_token(
-        Token.Semicolon.class,
-        "terminator `;` of the %s statement".formatted(switch (affect.get())
-        {
-          case Node.Increment i -> "increment";
-          case Node.Decrement d -> "decrement";
-          case Node.DirectlyAssign a -> "assign";
-          case Node.MultiplyAssign a -> "multiply assign";
-          case Node.DivideAssign a -> "divide assign";
-          case Node.DivideIntegerAssign a -> "divide integer assign";
-          case Node.ModulusAssign a -> "modulus assign";
-          case Node.AddAssign a -> "add assign";
-          case Node.SubtractAssign a -> "subtract assign";
-          case Node.ShiftLeftAssign a -> "shift left assign";
-          case Node.ShiftRightAssign a -> "shift right assign";
-          case Node.AndBitwiseAssign a -> "and bitwise assign";
-          case Node.XorBitwiseAssign a -> "xor bitwise assign";
-          case Node.OrBitwiseAssign a -> "or bitwise assign";
-          case Node.Discard d -> "discard";
-        }));
-    }
+  private Node.Affect parse_affect() {
+    Node.Affect affect = parse_unterminated_affect();
+    expect_token(
+      TokenKind.semicolon,
+      "terminator `;` of the %s statement".formatted(switch (affect) {
+        case Node.Increment i -> "increment";
+        case Node.Decrement d -> "decrement";
+        case Node.DirectlyAssign a -> "assign";
+        case Node.MultiplyAssign a -> "multiply assign";
+        case Node.DivideAssign a -> "divide assign";
+        case Node.DivideIntegerAssign a -> "divide integer assign";
+        case Node.ModulusAssign a -> "modulus assign";
+        case Node.AddAssign a -> "add assign";
+        case Node.SubtractAssign a -> "subtract assign";
+        case Node.ShiftLeftAssign a -> "shift left assign";
+        case Node.ShiftRightAssign a -> "shift right assign";
+        case Node.AndBitwiseAssign a -> "and bitwise assign";
+        case Node.XorBitwiseAssign a -> "xor bitwise assign";
+        case Node.OrBitwiseAssign a -> "or bitwise assign";
+        case Node.Discard d -> "discard";
+      }));
     return affect;
   }
 
-  /** Parses an affect statement without a terminator. */
-  private Optional<Node.Affect> parse_unterminated_affect() {
-    Optional<Node.Expression> expression = parse_expression();
-    if (expression.isEmpty()) { return Optional.empty(); }
-    Node.Affect affect = new Node.Discard(expression.get());
-    if (expression.get() instanceof Node.SymbolAccess target) {
-      Optional<AssignmentParser> assignment_parser =
-        parse_assignment_operator();
-      if (assignment_parser.isPresent()) {
-        Node.Expression source =
-          expect(
-            this::parse_expression,
-            "source of the %s statement"
-              .formatted(assignment_parser.get().name()));
-        affect = assignment_parser.get().initializer().apply(target, source);
-      }
-      else
-        if (parse_token(Token.PlusPlus.class).isPresent()) {
-          affect = new Node.Increment(target);
-        }
-        else
-          if (parse_token(Token.MinusMinus.class).isPresent()) {
-            affect = new Node.Decrement(target);
-          }
-    }
-    return Optional.of(affect);
-  }
-
-  /** Parses an assignment operator. */
-  private Optional<AssignmentParser> parse_assignment_operator() {
-    if (parse_token(Token.Equal.class).isPresent()) {
-      return Optional
-        .of(new AssignmentParser(Node.DirectlyAssign::new, "assign"));
-    }
-    if (parse_token(Token.StarEqual.class).isPresent()) {
-      return Optional
-        .of(new AssignmentParser(Node.MultiplyAssign::new, "multiply assign"));
-    }
-    if (parse_token(Token.SlashEqual.class).isPresent()) {
-      return Optional
-        .of(new AssignmentParser(Node.DivideAssign::new, "divide assign"));
-    }
-    if (parse_token(Token.SlashSlashEqual.class).isPresent()) {
-      return Optional
-        .of(
-          new AssignmentParser(
-            Node.DivideIntegerAssign::new,
-            "divide integer assign"));
-    }
-    if (parse_token(Token.PercentEqual.class).isPresent()) {
-      return Optional
-        .of(new AssignmentParser(Node.ModulusAssign::new, "modulus assign"));
-    }
-    if (parse_token(Token.PlusEqual.class).isPresent()) {
-      return Optional
-        .of(new AssignmentParser(Node.AddAssign::new, "add assign"));
-    }
-    if (parse_token(Token.MinusEqual.class).isPresent()) {
-      return Optional
-        .of(new AssignmentParser(Node.SubtractAssign::new, "subtract assign"));
-    }
-    if (parse_token(Token.LeftLeftEqual.class).isPresent()) {
-      return Optional
-        .of(
-          new AssignmentParser(Node.ShiftLeftAssign::new, "shift left assign"));
-    }
-    if (parse_token(Token.RightRightEqual.class).isPresent()) {
-      return Optional
-        .of(
-          new AssignmentParser(
-            Node.ShiftRightAssign::new,
-            "shift right assign"));
-    }
-    if (parse_token(Token.AmpersandEqual.class).isPresent()) {
-      return Optional
-        .of(
-          new AssignmentParser(
-            Node.AndBitwiseAssign::new,
-            "and bitwise assign"));
-    }
-    if (parse_token(Token.CaretEqual.class).isPresent()) {
-      return Optional
-        .of(
-          new AssignmentParser(
-            Node.XorBitwiseAssign::new,
-            "xor bitwise assign"));
-    }
-    if (parse_token(Token.PipeEqual.class).isPresent()) {
-      return Optional
-        .of(
-          new AssignmentParser(Node.OrBitwiseAssign::new, "or bitwise assign"));
-    }
-    return Optional.empty();
-  }
-
-  /** Parses an expression. */
-  private Optional<Node.Expression> parse_expression() {
-    return first_of(this::parse_precedence_11);
+  /** Parses an affect statement without a terminator, which must start at the
+   * current token. */
+  private Node.Affect parse_unterminated_affect() {
+    Node.Expression expression = parse_expression();
+    if (!(expression instanceof Node.SymbolAccess target)) {
+      return new Node.Discard(expression);
+    }
+    int kind = current_kind();
+    if (kind != -1 && assignment_parsers[kind] != null) {
+      AssignmentParser assignment_parser = assignment_parsers[kind];
+      current++;
+      Node.Expression source =
+        expect_expression(
+          "source of the %s statement".formatted(assignment_parser.name()));
+      return assignment_parser.initializer().apply(target, source);
+    }
+    if (parse_token(TokenKind.plus_plus)) { return new Node.Increment(target); }
+    if (parse_token(TokenKind.minus_minus)) {
+      return new Node.Decrement(target);
+    }
+    return new Node.Discard(expression);
+  }
+
+  /** Returns whether the current token starts an expression. */
+  private boolean is_expression() {
+    return switch (current_kind()) {
+      case TokenKind.plus, TokenKind.minus, TokenKind.tilde,
+        TokenKind.exclamation, TokenKind.opening_parenthesis,
+        TokenKind.identifier, TokenKind.number_constant,
+        TokenKind.color_constant, TokenKind.string_constant ->
+        true;
+      default -> false;
+    };
+  }
+
+  /** Ensures that an expression starts at the current token and parses it.
+   * Otherwise throws a diagnostic with the given explanation. */
+  private Node.Expression expect_expression(String expression_explanation) {
+    ensure_expression(expression_explanation);
+    return parse_expression();
+  }
+
+  /** Ensures that an expression starts at the current token. Otherwise throws
+   * a diagnostic with the given explanation. */
+  private void ensure_expression(String expression_explanation) {
+    if (!is_expression()) { throw unexpected(expression_explanation); }
+  }
+
+  /** Parses an expression, which must start at the current token. */
+  private Node.Expression parse_expression() {
+    return parse_precedence_11();
   }
 
   /** Parses an expression at precedence level 11. */
-  private Optional<Node.Precedence11> parse_precedence_11() {
-    return parse_binary_operations(
-      this::parse_precedence_10,
-      new BinaryOperationParser<>(
-        Token.PipePipe.class,
-        Node.LogicalOr::new,
-        "logical or"));
+  private Node.Precedence11 parse_precedence_11() {
+    Node.Precedence11 result = parse_precedence_10();
+    while (parse_token(TokenKind.pipe_pipe)) {
+      ensure_expression("right operand of logical or expression");
+      result = new Node.LogicalOr(result, parse_precedence_10());
+    }
+    return result;
   }
 
   /** Parses an expression at precedence level 10. */
-  private Optional<Node.Precedence10> parse_precedence_10() {
-    return parse_binary_operations(
-      this::parse_precedence_09,
-      new BinaryOperationParser<>(
-        Token.AmpersandAmpersand.class,
-        Node.LogicalAnd::new,
-        "logical and"));
+  private Node.Precedence10 parse_precedence_10() {
+    Node.Precedence10 result = parse_precedence_09();
+    while (parse_token(TokenKind.ampersand_ampersand)) {
+      ensure_expression("right operand of logical and expression");
+      result = new Node.LogicalAnd(result, parse_precedence_09());
+    }
+    return result;
   }
 
   /** Parses an expression at precedence level 9. */
-  private Optional<Node.Precedence09> parse_precedence_09() {
-    return parse_binary_operations(
-      this::parse_precedence_08,
-      new BinaryOperationParser<>(
-        Token.EqualEqual.class,
-        Node.EqualTo::new,
-        "equal to"),
-      new BinaryOperationParser<>(
-        Token.ExclamationEqual.class,
-        Node.NotEqualTo::new,
-        "not equal to"),
-      new BinaryOperationParser<>(
-        Token.EqualEqualEqual.class,
-        Node.StrictlyEqualTo::new,
-        "strictly equal to"));
+  private Node.Precedence09 parse_precedence_09() {
+    Node.Precedence09 result = parse_precedence_08();
+    while (true) {
+      switch (current_kind()) {
+        case TokenKind.equal_equal -> {
+          current++;
+          ensure_expression("right operand of equal to expression");
+          result = new Node.EqualTo(result, parse_precedence_08());
+        }
+        case TokenKind.exclamation_equal -> {
+          current++;
+          ensure_expression("right operand of not equal to expression");
+          result = new Node.NotEqualTo(result, parse_precedence_08());
+        }
+        case TokenKind.equal_equal_equal -> {
+          current++;
+          ensure_expression("right operand of strictly equal to expression");
+          result = new Node.StrictlyEqualTo(result, parse_precedence_08());
+        }
+        default -> { return result; }
+      }
+    }
   }
 
   /** Parses an expression at precedence level 8. */
-  private Optional<Node.Precedence08> parse_precedence_08() {
-    return parse_binary_operations(
-      this::parse_precedence_07,
-      new BinaryOperationParser<>(
-        Token.Left.class,
-        Node.LessThan::new,
-        "less than"),
-      new BinaryOperationParser<>(
-        Token.LeftEqual.class,
-        Node.LessThanOrEqualTo::new,
-        "less than or equal to"),
-      new BinaryOperationParser<>(
-        Token.Right.class,
-        Node.GreaterThan::new,
-        "greater than"),
-      new BinaryOperationParser<>(
-        Token.RightEqual.class,
-        Node.GreaterThanOrEqualTo::new,
-        "greater than or equal to"));
+  private Node.Precedence08 parse_precedence_08() {
+    Node.Precedence08 result = parse_precedence_07();
+    while (true) {
+      switch (current_kind()) {
+        case TokenKind.left -> {
+          current++;
+          ensure_expression("right operand of less than expression");
+          result = new Node.LessThan(result, parse_precedence_07());
+        }
+        case TokenKind.left_equal -> {
+          current++;
+          ensure_expression(
+            "right operand of less than or equal to expression");
+          result = new Node.LessThanOrEqualTo(result, parse_precedence_07());
+        }
+        case TokenKind.right -> {
+          current++;
+          ensure_expression("right operand of greater than expression");
+          result = new Node.GreaterThan(result, parse_precedence_07());
+        }
+        case TokenKind.right_equal -> {
+          current++;
+          ensure_expression(
+            "right operand of greater than or equal to expression");
+          result = new Node.GreaterThanOrEqualTo(result, parse_precedence_07());
+        }
+        default -> { return result; }
+      }
+    }
   }
 
   /** Parses an expression at precedence level 7. */
-  private Optional<Node.Precedence07> parse_precedence_07() {
-    return parse_binary_operations(
-      this::parse_precedence_06,
-      new BinaryOperationParser<>(
-        Token.Pipe.class,
-        Node.BitwiseOr::new,
-        "bitwise or"));
+  private Node.Precedence07 parse_precedence_07() {
+    Node.Precedence07 result = parse_precedence_06();
+    while (parse_token(TokenKind.pipe)) {
+      ensure_expression("right operand of bitwise or expression");
+      result = new Node.BitwiseOr(result, parse_precedence_06());
+    }
+    return result;
   }
 
   /** Parses an expression at precedence level 6. */
-  private Optional<Node.Precedence06> parse_precedence_06() {
-    return parse_binary_operations(
-      this::parse_precedence_05,
-      new BinaryOperationParser<>(
-        Token.Caret.class,
-        Node.BitwiseXor::new,
-        "bitwise xor"));
+  private Node.Precedence06 parse_precedence_06() {
+    Node.Precedence06 result = parse_precedence_05();
+    while (parse_token(TokenKind.caret)) {
+      ensure_expression("right operand of bitwise xor expression");
+      result = new Node.BitwiseXor(result, parse_precedence_05());
+    }
+    return result;
   }
 
   /** Parses an expression at precedence level 5. */
-  private Optional<Node.Precedence05> parse_precedence_05() {
-    return parse_binary_operations(
-      this::parse_precedence_04,
-      new BinaryOperationParser<>(
-        Token.Ampersand.class,
-        Node.BitwiseAnd::new,
-        "bitwise and"));
+  private Node.Precedence05 parse_precedence_05() {
+    Node.Precedence05 result = parse_precedence_04();
+    while (parse_token(TokenKind.ampersand)) {
+      ensure_expression("right operand of bitwise and expression");
+      result = new Node.BitwiseAnd(result, parse_precedence_04());
+    }
+    return result;
   }
 
   /** Parses an expression at precedence level 4. */
-  private Optional<Node.Precedence04> parse_precedence_04() {
-    return parse_binary_operations(
-      this::parse_precedence_03,
-      new BinaryOperationParser<>(
-        Token.LeftLeft.class,
-        Node.LeftShift::new,
-        "left shift"),
-      new BinaryOperationParser<>(
-        Token.RightRight.class,
-        Node.RightShift::new,
-        "right shift"));
+  private Node.Precedence04 parse_precedence_04() {
+    Node.Precedence04 result = parse_precedence_03();
+    while (true) {
+      switch (current_kind()) {
+        case TokenKind.left_left -> {
+          current++;
+          ensure_expression("right operand of left shift expression");
+          result = new Node.LeftShift(result, parse_precedence_03());
+        }
+        case TokenKind.right_right -> {
+          current++;
+          ensure_expression("right operand of right shift expression");
+          result = new Node.RightShift(result, parse_precedence_03());
+        }
+        default -> { return result; }
+      }
+    }
   }
 
   /** Parses an expression at precedence level 3. */
-  private Optional<Node.Precedence03> parse_precedence_03() {
-    return parse_binary_operations(
-      this::parse_precedence_02,
-      new BinaryOperationParser<>(
-        Token.Plus.class,
-        Node.Addition::new,
-        "addition"),
-      new BinaryOperationParser<>(
-        Token.Minus.class,
-        Node.Subtraction::new,
-        "subtraction"));
+  private Node.Precedence03 parse_precedence_03() {
+    Node.Precedence03 result = parse_precedence_02();
+    while (true) {
+      switch (current_kind()) {
+        case TokenKind.plus -> {
+          current++;
+          ensure_expression("right operand of addition expression");
+          result = new Node.Addition(result, parse_precedence_02());
+        }
+        case TokenKind.minus -> {
+          current++;
+          ensure_expression("right operand of subtraction expression");
+          result = new Node.Subtraction(result, parse_precedence_02());
+        }
+        default -> { return result; }
+      }
+    }
   }
 
   /** Parses an expression at precedence level 2. */
-  private Optional<Node.Precedence02> parse_precedence_02() {
-    return parse_binary_operations(
-      this::parse_precedence_01,
-      new BinaryOperationParser<>(
-        Token.Star.class,
-        Node.Multiplication::new,
-        "multiplication"),
-      new BinaryOperationParser<>(
-        Token.Slash.class,
-        Node.Division::new,
-        "division"),
-      new BinaryOperationParser<>(
-        Token.SlashSlash.class,
-        Node.IntegerDivision::new,
-        "integer division"),
-      new BinaryOperationParser<>(
-        Token.Percent.class,
-        Node.Modulus::new,
-        "modulus"));
-  }
-
-  /** Parses a group of binary operators in the same precedence level from left
-   * to right. */
-  @SafeVarargs
-  private <PrecedenceType extends Node.Expression, OperandType extends PrecedenceType> Optional<PrecedenceType> parse_binary_operations(
-    Supplier<Optional<OperandType>> operand_parser_function,
-    BinaryOperationParser<PrecedenceType>... binary_operation_parsers)
-  {
-    Optional<OperandType> first_operand = operand_parser_function.get();
-    if (first_operand.isEmpty()) { return Optional.empty(); }
-    PrecedenceType result = first_operand.get();
-    left_to_right_same_precedence_operator_parsing: while (true) {
-      for (BinaryOperationParser<PrecedenceType> binary_operation_parser : binary_operation_parsers) {
-        if (parse_token(binary_operation_parser.operator_class()).isEmpty()) {
-          continue;
+  private Node.Precedence02 parse_precedence_02() {
+    Node.Precedence02 result = parse_precedence_01();
+    while (true) {
+      switch (current_kind()) {
+        case TokenKind.star -> {
+          current++;
+          ensure_expression("right operand of multiplication expression");
+          result = new Node.Multiplication(result, parse_precedence_01());
         }
-        OperandType right_operand =
-          expect(
-            operand_parser_function,
-            "right operand of %s expression"
-              .formatted(binary_operation_parser.name()));
-        result =
-          binary_operation_parser.initializer().apply(result, right_operand);
-        continue left_to_right_same_precedence_operator_parsing;
-      }
-      break;
-    }
-    return Optional.of(result);
-  }
-
-  /** Parses an expression at precedence level 1. */
-  private Optional<Node.Precedence01> parse_precedence_01() {
-    return parse_unary_operations(
-      this::parse_precedence_00,
-      new UnaryOperationParser<>(
-        Token.Plus.class,
-        Node.Promotion::new,
-        "promotion"),
-      new UnaryOperationParser<>(
-        Token.Minus.class,
-        Node.Negation::new,
-        "negation"),
-      new UnaryOperationParser<>(
-        Token.Tilde.class,
-        Node.BitwiseNot::new,
-        "bitwise not"),
-      new UnaryOperationParser<>(
-        Token.Exclamation.class,
-        Node.LogicalNot::new,
-        "logical not"));
-  }
-
-  /** Parses a group of unary operators in the same precedence level from right
-   * to left. */
-  @SafeVarargs
-  private <PrecedenceType extends Node.Expression, OperandType extends PrecedenceType> Optional<PrecedenceType> parse_unary_operations(
-    Supplier<Optional<OperandType>> operand_parser_function,
-    UnaryOperationParser<PrecedenceType>... unary_operation_parsers)
-  {
-    List<UnaryOperationParser<PrecedenceType>> stack = new ArrayList<>();
-    left_to_right_same_precedence_operator_parsing: while (true) {
-      for (UnaryOperationParser<PrecedenceType> unary_operation_parser : unary_operation_parsers) {
-        if (parse_token(unary_operation_parser.operator_class()).isEmpty()) {
-          continue;
+        case TokenKind.slash -> {
+          current++;
+          ensure_expression("right operand of division expression");
+          result = new Node.Division(result, parse_precedence_01());
+        }
+        case TokenKind.slash_slash -> {
+          current++;
+          ensure_expression("right operand of integer division expression");
+          result = new Node.IntegerDivision(result, parse_precedence_01());
         }
-        stack.add(unary_operation_parser);
-        continue left_to_right_same_precedence_operator_parsing;
+        case TokenKind.percent -> {
+          current++;
+          ensure_expression("right operand of modulus expression");
+          result = new Node.Modulus(result, parse_precedence_01());
+        }
+        default -> { return result; }
       }
-      break;
-    }
-    if (stack.isEmpty()) {
-      return operand_parser_function.get().map(Function.identity());
     }
-    PrecedenceType result =
-      expect(
-        operand_parser_function,
-        "operand of %s expression"
-          .formatted(stack.get(stack.size() - 1).name()));
-    for (int i = stack.size(); i != 0; i--) {
-      result = stack.get(i - 1).initializer().apply(result);
-    }
-    return Optional.of(result);
+  }
+
+  /** Parses an expression at precedence level 1. The operators are applied
+   * from right to left. */
+  private Node.Precedence01 parse_precedence_01() {
+    return switch (current_kind()) {
+      case TokenKind.plus -> new Node.Promotion(parse_operand("promotion"));
+      case TokenKind.minus -> new Node.Negation(parse_operand("negation"));
+      case TokenKind.tilde -> new Node.BitwiseNot(parse_operand("bitwise not"));
+      case TokenKind.exclamation ->
+        new Node.LogicalNot(parse_operand("logical not"));
+      default -> parse_precedence_00();
+    };
+  }
+
+  /** Parses the operand of the unary operator at the current token. */
+  private Node.Precedence01 parse_operand(String operation_name) {
+    current++;
+    ensure_expression("operand of %s expression".formatted(operation_name));
+    return parse_precedence_01();
   }
 
   /** Parses an expression at precedence level 0. */
-  private Optional<Node.Precedence00> parse_precedence_00() {
-    Optional<Node.Precedence00> precedence_0 =
-      first_of(
-        this::parse_grouping,
-        this::parse_symbol_based,
-        this::parse_number_constant,
-        this::parse_color_constant,
-        this::parse_string_constant);
-    if (precedence_0.isEmpty()) { return precedence_0; }
-    Node.Precedence00 result = precedence_0.get();
-    while (true) {
-      if (parse_token(Token.Dot.class).isEmpty()) { break; }
+  private Node.Precedence00 parse_precedence_00() {
+    Node.Precedence00 result = switch (current_kind()) {
+      case TokenKind.opening_parenthesis -> parse_grouping();
+      case TokenKind.identifier -> parse_symbol_based();
+      case TokenKind.number_constant -> parse_number_constant();
+      case TokenKind.color_constant -> parse_color_constant();
+      default -> parse_string_constant();
+    };
+    while (parse_token(TokenKind.dot)) {
       Token.Identifier member =
+        expect_identifier("member name in the member access expression");
+      if (parse_token(TokenKind.opening_parenthesis)) {
+        List<Node.Expression> remaining_arguments = parse_arguments();
         expect_token(
-          Token.Identifier.class,
-          "member name in the member access expression");
-      if (parse_token(Token.OpeningParenthesis.class).isPresent()) {
-        List<Node.Expression> remaining_arguments =
-          separated_of(this::parse_expression);
-        expect_token(
-          Token.ClosingParenthesis.class,
+          TokenKind.closing_parenthesis,
           "remaining argument list closer `)` of the member call expression");
         result = new Node.MemberCall(result, member, remaining_arguments);
         continue;
       }
       result = new Node.MemberAccess(result, member);
     }
-    return Optional.of(result);
+    return result;
   }
 
   /** Parses a grouping. */
-  private Optional<Node.Grouping> parse_grouping() {
-    if (parse_token(Token.OpeningParenthesis.class).isEmpty()) {
-      return Optional.empty();
-    }
+  private Node.Grouping parse_grouping() {
+    current++;
     Node.Expression grouped =
-      expect(
-        this::parse_expression,
-        "grouped expression of the grouping expression");
+      expect_expression("grouped expression of the grouping expression");
     expect_token(
-      Token.ClosingParenthesis.class,
+      TokenKind.closing_parenthesis,
       "closer `)` of the grouping expression");
-    Node.Grouping grouping = new Node.Grouping(grouped);
-    return Optional.of(grouping);
+    return new Node.Grouping(grouped);
   }
 
   /** Parses a symbol based. */
-  private Optional<Node.SymbolBased> parse_symbol_based() {
-    Optional<Node.Mention> mention = parse_mention();
-    if (mention.isEmpty()) { return Optional.empty(); }
-    Node.SymbolBased symbol_based = new Node.SymbolAccess(mention.get());
-    if (parse_token(Token.OpeningParenthesis.class).isPresent()) {
-      List<Node.Expression> arguments = separated_of(this::parse_expression);
-      expect_token(
-        Token.ClosingParenthesis.class,
-        "argument list closer `)` of the call expression");
-      symbol_based = new Node.Call(mention.get(), arguments);
+  private Node.SymbolBased parse_symbol_based() {
+    Node.Mention mention = parse_mention();
+    if (!parse_token(TokenKind.opening_parenthesis)) {
+      return new Node.SymbolAccess(mention);
     }
-    return Optional.of(symbol_based);
+    List<Node.Expression> arguments = parse_arguments();
+    expect_token(
+      TokenKind.closing_parenthesis,
+      "argument list closer `)` of the call expression");
+    return new Node.Call(mention, arguments);
   }
 
   /** Parses a number constant. */
-  private Optional<Node.NumberConstant> parse_number_constant() {
+  private Node.NumberConstant parse_number_constant() {
     int first = current;
-    Optional<Token.NumberConstant> token =
-      parse_token(Token.NumberConstant.class);
-    if (token.isEmpty()) { return Optional.empty(); }
-    Node.NumberConstant number_constant =
-      new Node.NumberConstant(first, token.get().value());
-    return Optional.of(number_constant);
+    current++;
+    return new Node.NumberConstant(
+      first,
+      source.token_stream.number_value(first));
   }
 
   /** Parses a color constant. */
-  private Optional<Node.ColorConstant> parse_color_constant() {
+  private Node.ColorConstant parse_color_constant() {
     int first = current;
-    Optional<Token.ColorConstant> token =
-      parse_token(Token.ColorConstant.class);
-    if (token.isEmpty()) { return Optional.empty(); }
-    Node.ColorConstant color_constant =
-      new Node.ColorConstant(first, token.get().value());
-    return Optional.of(color_constant);
+    current++;
+    return new Node.ColorConstant(
+      first,
+      source.token_stream.color_value(first));
   }
 
   /** Parses a string constant. */
-  private Optional<Node.StringConstant> parse_string_constant() {
+  private Node.StringConstant parse_string_constant() {
     int first = current;
-    Optional<Token.StringConstant> token =
-      parse_token(Token.StringConstant.class);
-    if (token.isEmpty()) { return Optional.empty(); }
-    Node.StringConstant string_constant =
-      new Node.StringConstant(first, token.get().value());
-    return Optional.of(string_constant);
-  }
-
-  /** Parses a mention. */
-  private Optional<Node.Mention> parse_mention() {
-    Optional<Token.Identifier> scope = parse_scope();
-    if (scope.isPresent()) {
-      Token.Identifier identifier =
-        expect_token(
-          Token.Identifier.class,
-          "identifier of the qualified mention");
-      Node.Mention mention = new Node.Mention(scope, identifier);
-      return Optional.of(mention);
-    }
-    Optional<Token.Identifier> identifier = parse_token(Token.Identifier.class);
-    if (identifier.isEmpty()) { return Optional.empty(); }
-    Node.Mention mention = new Node.Mention(scope, identifier.get());
-    return Optional.of(mention);
+    current++;
+    return new Node.StringConstant(
+      first,
+      source.token_stream.string_value(first));
   }
 
-  /** Parses a scope, which is the name of a source fallowed by `::`. */
-  private Optional<Token.Identifier> parse_scope() {
-    int first = current;
-    Optional<Token.Identifier> scope = parse_token(Token.Identifier.class);
-    if (scope.isEmpty()) { return Optional.empty(); }
-    if (parse_token(Token.ColonColon.class).isEmpty()) {
-      current = first;
-      return Optional.empty();
-    }
-    return scope.map(Function.identity());
-  }
-
-  /** Runs the given parser repeatedly and collects the parsed constructs as a
-   * list. Parses a separator comma between the constructs. Optionally, there
-   * could be a trailing comma. */
-  private <ConstructType> List<ConstructType> separated_of(
-    Supplier<Optional<ConstructType>> parser_function)
-  {
-    List<ConstructType> constructs = new ArrayList<>();
-    while (true) {
-      Optional<ConstructType> construct = parser_function.get();
-      if (construct.isEmpty()) { break; }
-      constructs.add(construct.get());
-      if (parse_token(Token.Comma.class).isEmpty()) { break; }
+  /** Parses the arguments separated by commas. Optionally, there could be a
+   * trailing comma. */
+  private List<Node.Expression> parse_arguments() {
+    if (!is_expression()) { return List.of(); }
+    List<Node.Expression> arguments = new ArrayList<>();
+    while (is_expression()) {
+      arguments.add(parse_expression());
+      if (!parse_token(TokenKind.comma)) { break; }
     }
-    return constructs;
+    return arguments;
   }
 
-  /** Runs the given parser repeatedly and collects the parsed constructs as a
-   * list. */
-  private <ConstructType> List<ConstructType> repeats_of(
-    Supplier<Optional<ConstructType>> parser_function)
-  {
-    List<ConstructType> constructs = new ArrayList<>();
-    while (true) {
-      Optional<ConstructType> construct = parser_function.get();
-      if (construct.isEmpty()) { break; }
-      constructs.add(construct.get());
+  /** Parses a mention, which must start at the current identifier. The
+   * identifier is the name of a source if it is fallowed by `::`. */
+  private Node.Mention parse_mention() {
+    Token.Identifier first = parse_identifier();
+    if (!parse_token(TokenKind.colon_colon)) {
+      return new Node.Mention(Optional.empty(), first);
     }
-    return constructs;
+    Token.Identifier identifier =
+      expect_identifier("identifier of the qualified mention");
+    return new Node.Mention(Optional.of(first), identifier);
   }
 
-  /** Returns the first construct that successfully parsed out of the given
-   * parsers. If all fail fails. */
-  @SafeVarargs
-  private <ConstructType> Optional<ConstructType> first_of(
-    Supplier<Optional<? extends ConstructType>>... parser_functions)
-  {
-    for (Supplier<Optional<? extends ConstructType>> parser_function : parser_functions) {
-      Optional<? extends ConstructType> construct = parser_function.get();
-      if (construct.isPresent()) { return Optional.of(construct.get()); }
-    }
-    return Optional.empty();
+  /** Ensures that the current token is of the given kind without parsing it.
+   * Otherwise throws a diagnostic with the given explanation. */
+  private void ensure_token(int kind, String token_explanation) {
+    if (current_kind() != kind) { throw unexpected(token_explanation); }
   }
 
   /** Ensures that the given token parses. Otherwise throws a diagnostic with
-   * the given explanation. Returns the parsed token. */
-  private <TokenType extends Token> TokenType expect_token(
-    Class<TokenType> token_class,
-    String token_explanation)
-  {
-    return expect(() -> parse_token(token_class), token_explanation);
-  }
-
-  /** Parses the next token if it exists and it is of the given class. */
-  @SuppressWarnings("unchecked")
-  private <TokenType extends Token> Optional<TokenType> parse_token(
-    Class<TokenType> token_class)
-  {
-    if (current == source.tokens.size()) { return Optional.empty(); }
-    Token token = source.tokens.get(current);
-    if (!token_class.isInstance(token)) { return Optional.empty(); }
+   * the given explanation. */
+  private void expect_token(int kind, String token_explanation) {
+    if (parse_token(kind)) { return; }
+    throw unexpected(token_explanation);
+  }
+
+  /** Ensures that an identifier parses. Otherwise throws a diagnostic with the
+   * given explanation. Returns the parsed identifier. */
+  private Token.Identifier expect_identifier(String identifier_explanation) {
+    ensure_token(TokenKind.identifier, identifier_explanation);
+    return parse_identifier();
+  }
+
+  /** Parses the current token, which must be an identifier. */
+  private Token.Identifier parse_identifier() {
+    Token.Identifier identifier =
+      new Token.Identifier(
+        source.token_stream.start(current),
+        source.token_stream.text(current));
+    current++;
+    return identifier;
+  }
+
+  /** Parses the next token if it exists and it is of the given kind. Returns
+   * whether the token was parsed. */
+  private boolean parse_token(int kind) {
+    if (current_kind() != kind) { return false; }
     current++;
-    return Optional.of((TokenType) token);
-  }
-
-  /** Ensures that the given parser parses. Otherwise throws a diagnostic with
-   * the given explanation. Returns the parsed construct. */
-  private <ConstructType> ConstructType expect(
-    Supplier<Optional<ConstructType>> parse_function,
-    String construct_explanation)
-  {
-    Optional<ConstructType> construct = parse_function.get();
-    if (construct.isPresent()) { return construct.get(); }
-    if (current == source.tokens.size()) {
+    return true;
+  }
+
+  /** Returns the kind of the current token, or -1 at the end of the file. */
+  private int current_kind() {
+    return next_kind(0);
+  }
+
+  /** Returns the kind of the token that is the given amount after the current
+   * one, or -1 if that is after the end of the file. */
+  private int next_kind(int offset) {
+    int index = current + offset;
+    if (index >= source.token_stream.size()) { return -1; }
+    return source.token_stream.kind(index);
+  }
+
+  /** Returns a diagnostic that reports the current token when the given
+   * construct was expected. */
+  private RuntimeException unexpected(String construct_explanation) {
+    if (current == source.token_stream.size()) {
       Token reported_token = source.tokens.get(current - 1);
-      throw source
+      return source
         .subject(reported_token)
         .to_diagnostic(
           "error",
@@ -898,7 +904,7 @@ public final class Parser {
         .to_exception();
     }
     Token reported_token = source.tokens.get(current);
-    throw source
+    return source
       .subject(reported_token)
       .to_diagnostic(
         "error",
@@ -1,15 +1,28 @@
 package hlml.reporter;
 
-/** Reports about the compilation process. */
-public record Diagnostic(String message) {
+import java.util.Formatter;
+
+/** Reports about the compilation process. Consists of the subject that caused
+ * it, a title that tells its severity, and a description of the problem. */
+public record Diagnostic(Subject subject, String title, String description) {
+  /** Returns the text of this diagnostic as it is shown to the user. */
+  public String message() {
+    StringBuilder buffer = new StringBuilder();
+    try (Formatter formatter = new Formatter(buffer)) {
+      subject.format_to(formatter);
+      formatter.format(": %s: %s", title, description);
+    }
+    return buffer.toString();
+  }
+
   /** Returns an exception with this diagnostic's message. */
-  public RuntimeException to_exception() {
-    return new RuntimeException(message);
+  public DiagnosticException to_exception() {
+    return new DiagnosticException(this, null);
   }
 
   /** Returns an exception with this diagnostic's message and the given
    * cause. */
-  public RuntimeException to_exception(Throwable cause) {
-    return new RuntimeException(message, cause);
+  public DiagnosticException to_exception(Throwable cause) {
+    return new DiagnosticException(this, cause);
   }
 }
@@ -0,0 +1,19 @@
+package hlml.reporter;
+
+/** Exception that carries a diagnostic. Does not record a stack trace, as the
+ * diagnostic already tells where the problem is in the source, which makes it
+ * cheap to throw for every problem that is found. */
+public final class DiagnosticException extends RuntimeException {
+  /** Version of the serialized form. */
+  private static final long serialVersionUID = 1L;
+
+  /** Carried diagnostic. Not serialized, as the diagnostic refers to the
+   * sources it is about. */
+  public final transient Diagnostic diagnostic;
+
+  /** Constructs. */
+  DiagnosticException(Diagnostic diagnostic, Throwable cause) {
+    super(diagnostic.message(), cause, false, false);
+    this.diagnostic = diagnostic;
+  }
+}
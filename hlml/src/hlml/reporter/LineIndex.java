@@ -0,0 +1,83 @@
+package hlml.reporter;
+
+import java.util.Arrays;
+
+/** Offsets of the lines in the contents of a source file. Finds the line and
+ * the column of an index in the contents by a binary search over the offsets,
+ * which are found once when they are first needed. Can be shared between
+ * threads. */
+public final class LineIndex {
+  /** Returns the index of the given contents. */
+  public static LineIndex of(String contents) {
+    return new LineIndex(contents);
+  }
+
+  /** Contents that are indexed. */
+  private final String contents;
+
+  /** Indices in the contents where each line starts. The first line starts at
+   * zero, and the others start after a line feed. Found when first needed. */
+  private volatile int[] line_starts;
+
+  /** Constructor. */
+  private LineIndex(String contents) {
+    this.contents = contents;
+  }
+
+  /** Returns the indexed contents. */
+  public String contents() {
+    return contents;
+  }
+
+  /** Returns the number of lines in the contents. */
+  public int line_count() {
+    return line_starts().length;
+  }
+
+  /** Returns the index where the given line, which starts from one, starts in
+   * the contents. */
+  public int line_start(int line) {
+    return line_starts()[line - 1];
+  }
+
+  /** Returns the line of the given index in the contents, which starts from
+   * one. */
+  public int line(int index) {
+    int[] starts = line_starts();
+    int found = Arrays.binarySearch(starts, index);
+    if (found >= 0) { return found + 1; }
+    return -found - 1;
+  }
+
+  /** Returns the column of the given index in the contents, which starts from
+   * one and counts the code points from the start of its line. Indices past
+   * the contents are counted as one column each. */
+  public int column(int index) {
+    int start = line_start(line(index));
+    int end = Math.min(index, contents.length());
+    int column = 1 + contents.codePointCount(start, end);
+    if (index > end) { column += index - end; }
+    return column;
+  }
+
+  /** Returns the indices where the lines start, finding them if they are not
+   * found yet. */
+  private int[] line_starts() {
+    int[] starts = line_starts;
+    if (starts != null) { return starts; }
+    starts = new int[16];
+    int count = 1;
+    int index = contents.indexOf('\n');
+    while (index != -1) {
+      if (count == starts.length) {
+        starts = Arrays.copyOf(starts, count * 2);
+      }
+      starts[count] = index + 1;
+      count++;
+      index = contents.indexOf('\n', index + 1);
+    }
+    starts = Arrays.copyOf(starts, count);
+    line_starts = starts;
+    return starts;
+  }
+}
@@ -0,0 +1,81 @@
+package hlml.reporter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Collects the diagnostics of a compilation such that all of them are
+ * reported at once. Stops the compilation when too many errors are
+ * collected. Diagnostics can be collected concurrently. */
+public final class Reporter {
+  /** Number of errors that stops a compilation if another limit is not
+   * given. */
+  public static final int default_error_limit = 100;
+
+  /** Returns a reporter that stops after the given number of errors. */
+  public static Reporter create(int error_limit) {
+    if (error_limit < 1) {
+      throw Subject
+        .of("compiler")
+        .to_diagnostic(
+          "failure",
+          "Error limit must be positive, not `%d`!",
+          error_limit)
+        .to_exception();
+    }
+    return new Reporter(error_limit, new ArrayList<>());
+  }
+
+  /** Number of errors that stops the compilation. */
+  private final int error_limit;
+
+  /** Collected diagnostics in the order they were reported. */
+  private final List<Diagnostic> diagnostics;
+
+  /** Constructor. */
+  private Reporter(int error_limit, List<Diagnostic> diagnostics) {
+    this.error_limit = error_limit;
+    this.diagnostics = diagnostics;
+  }
+
+  /** Collects a diagnostic. Throws all the collected diagnostics if the error
+   * limit is reached. */
+  public synchronized void report(Diagnostic diagnostic) {
+    diagnostics.add(diagnostic);
+    if (diagnostics.size() < error_limit) { return; }
+    diagnostics
+      .add(
+        Subject
+          .of("compiler")
+          .to_diagnostic(
+            "failure",
+            "Stopped after reaching the limit of %d errors!",
+            error_limit));
+    throw to_exception();
+  }
+
+  /** Collects the given diagnostics in order. */
+  public void report_all(List<Diagnostic> reported) {
+    for (Diagnostic diagnostic : reported) { report(diagnostic); }
+  }
+
+  /** Returns whether an error was collected. */
+  public synchronized boolean has_errors() {
+    return !diagnostics.isEmpty();
+  }
+
+  /** Returns the collected diagnostics. */
+  public synchronized List<Diagnostic> diagnostics() {
+    return List.copyOf(diagnostics);
+  }
+
+  /** Returns an exception with the messages of all the collected diagnostics,
+   * one on each line. */
+  public synchronized RuntimeException to_exception() {
+    StringBuilder message = new StringBuilder();
+    for (Diagnostic diagnostic : diagnostics) {
+      if (!message.isEmpty()) { message.append(System.lineSeparator()); }
+      message.append(diagnostic.message());
+    }
+    return new RuntimeException(message.toString());
+  }
+}
@@ -12,37 +12,32 @@ public sealed interface Subject {
   }
 
   /** Creator as a location in a source file. */
-  record Location(Path file, String contents, int start, int end)
+  record Location(Path file, LineIndex lines, int start, int end)
     implements Subject
   {
     @Override
     public void format_to(Formatter formatter) {
       formatter.format("%s", file.toAbsolutePath().normalize());
-      int line = 1;
-      int column = 1;
-      int index = 0;
-      for (; index < start; index = contents.offsetByCodePoints(index, 1)) {
-        column++;
-        int character = contents.codePointAt(index);
-        if (character == '\n') {
-          line++;
-          column = 1;
-        }
-      }
-      formatter.format(":%d:%d", line, column);
-      int start_line = line;
-      int start_column = column;
-      for (; index < end; index = contents.offsetByCodePoints(index, 1)) {
-        column++;
-        int character = contents.codePointAt(index);
-        if (character == '\n') {
-          line++;
-          column = 1;
-        }
-      }
-      if (start_line == line && start_column == column - 1) { return; }
-      formatter.format(":%d:%d", line, column);
+      int start_line = start_line();
+      int start_column = start_column();
+      formatter.format(":%d:%d", start_line, start_column);
+      int end_line = end_line();
+      int end_column = end_column();
+      if (start_line == end_line && start_column == end_column - 1) { return; }
+      formatter.format(":%d:%d", end_line, end_column);
     }
+
+    /** Returns the line of the start, which starts from 1. */
+    public int start_line() { return lines.line(start); }
+
+    /** Returns the column of the start, which starts from 1. */
+    public int start_column() { return lines.column(start); }
+
+    /** Returns the line of the end, which starts from 1. */
+    public int end_line() { return lines.line(end); }
+
+    /** Returns the column of the end, which starts from 1. */
+    public int end_column() { return lines.column(end); }
   }
 
   /** Returns a subject by the given name. */
@@ -57,8 +52,8 @@ public sealed interface Subject {
 
   /** Returns a subject as the location in the given file from the start byte up
    * to the end byte. */
-  static Subject of(Path file, String contents, int start, int end) {
-    return new Location(file, contents, start, end);
+  static Subject of(Path file, LineIndex lines, int start, int end) {
+    return new Location(file, lines, start, end);
   }
 
   /** Returns a message from this subject. */
@@ -67,14 +62,7 @@ public sealed interface Subject {
     String format,
     Object... arguments)
   {
-    StringBuilder buffer = new StringBuilder();
-    try (Formatter formatter = new Formatter(buffer)) {
-      format_to(formatter);
-      formatter.format(": %s: ", title);
-      formatter.format(format, arguments);
-    }
-    String message = buffer.toString();
-    return new Diagnostic(message);
+    return new Diagnostic(this, title, format.formatted(arguments));
   }
 
   /** Formats the subject. */
@@ -0,0 +1,28 @@
+package hlml.resolver;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** Flight recording of lexing, parsing and resolving a source. */
+@Name("hlml.Resolve")
+@Label("Resolve")
+@Category({"HLML", "Compiler"})
+@Description("Lexing, parsing and resolving a source.")
+final class ResolveEvent extends Event {
+  /** Name of the resolved source. */
+  @Label("Source")
+  String source;
+
+  /** Size of the contents of the source in UTF-8. */
+  @Label("Size")
+  @DataAmount
+  long bytes;
+
+  /** Number of tokens in the source. */
+  @Label("Tokens")
+  long tokens;
+}
@@ -5,9 +5,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
-import hlml.lexer.Token;
+import hlml.lexer.TokenStream;
 import hlml.parser.Node;
 import hlml.parser.ParsedSource;
+import hlml.reporter.Diagnostic;
+import hlml.reporter.LineIndex;
 
 /** Tabulated user-defined constructs in a source file. */
 public class ResolvedSource extends ParsedSource {
@@ -21,26 +23,31 @@ public class ResolvedSource extends ParsedSource {
   public ResolvedSource(
     Path path,
     String contents,
-    List<Token> tokens,
+    LineIndex lines,
+    TokenStream token_stream,
+    List<Diagnostic> diagnostics,
     List<Node.Declaration> declarations,
     Optional<Node.Entrypoint> entrypoint,
     Map<String, Node.Definition> globals)
   {
-    super(path, contents, tokens, declarations);
+    super(path, contents, lines, token_stream, diagnostics, declarations);
     this.entrypoint = entrypoint;
     this.globals = globals;
   }
 
-  /** Constructs. */
+  /** Constructs. The given diagnostics include the parent's. */
   public ResolvedSource(
     ParsedSource parent,
+    List<Diagnostic> diagnostics,
     Optional<Node.Entrypoint> entrypoint,
     Map<String, Node.Definition> globals)
   {
     this(
       parent.path,
       parent.contents,
-      parent.tokens,
+      parent.lines,
+      parent.token_stream,
+      diagnostics,
       parent.declarations,
       entrypoint,
       globals);
@@ -1,109 +1,176 @@
 package hlml.resolver;
 
-import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
+import hlml.Recorder;
+import hlml.Representation;
 import hlml.Source;
+import hlml.Timings;
 import hlml.lexer.LexedSource;
 import hlml.lexer.Lexer;
+import hlml.lexer.Token;
 import hlml.loader.LoadedSource;
 import hlml.loader.Loader;
 import hlml.parser.Node;
 import hlml.parser.ParsedSource;
 import hlml.parser.Parser;
-import hlml.reporter.Subject;
+import hlml.reporter.Diagnostic;
 
 /** First pass of the analysis. Records down all the declarations'
  * designators. */
 public final class Resolver {
   /** Resolves a source. */
-  public static ResolvedSource resolve(Path file, Optional<Path> artifacts) {
-    Resolver resolver = new Resolver(file, artifacts);
+  public static ResolvedSource resolve(
+    Path file,
+    Optional<Recorder> recorder)
+  {
+    return resolve(Loader.load(new Source(file)), recorder);
+  }
+
+  /** Resolves a source that is already loaded. */
+  public static ResolvedSource resolve(
+    LoadedSource source,
+    Optional<Recorder> recorder)
+  {
+    return resolve(source, recorder, Optional.empty());
+  }
+
+  /** Resolves a source that is already loaded, and measures the phases if
+   * there are timings. */
+  public static ResolvedSource resolve(
+    LoadedSource source,
+    Optional<Recorder> recorder,
+    Optional<Timings> timings)
+  {
+    Resolver resolver = new Resolver(source, recorder, timings);
     return resolver.resolve();
   }
 
-  /** Path to the resolved source file. */
-  private final Path file;
+  /** Resolved source file. */
+  private final LoadedSource loaded_source;
+
+  /** Recorder of the representations of the source. */
+  private final Optional<Recorder> recorder;
 
-  /** Path to the directory where compilation artifacts can be recorded to. */
-  private final Optional<Path> artifacts;
+  /** Measurer of the phases. */
+  private final Optional<Timings> timings;
 
   /** Constructor. */
-  private Resolver(Path file, Optional<Path> artifacts) {
-    this.file = file;
-    this.artifacts = artifacts;
+  private Resolver(
+    LoadedSource loaded_source,
+    Optional<Recorder> recorder,
+    Optional<Timings> timings)
+  {
+    this.loaded_source = loaded_source;
+    this.recorder = recorder;
+    this.timings = timings;
   }
 
   /** Resolves the source. */
   private ResolvedSource resolve() {
-    Source source = new Source(file);
-    LoadedSource loaded_source = Loader.load(source);
-    record_representation(source.name(), "contents", loaded_source.contents);
-    LexedSource lexed_source = Lexer.lex(loaded_source);
-    record_representation(source.name(), "tokens", lexed_source.tokens);
-    ParsedSource parsed_source = Parser.parse(lexed_source);
-    record_representation(
-      source.name(),
-      "declarations",
-      parsed_source.declarations);
+    ResolveEvent event = new ResolveEvent();
+    event.begin();
+    String contents = loaded_source.contents;
+    record(Representation.contents, o -> o.write(contents));
+    LexedSource lexed_source =
+      measure(Timings.Phase.lex, () -> Lexer.lex(loaded_source));
+    count(Timings.Phase.lex, "tokens", lexed_source.token_stream.size());
+    List<Token> tokens = lexed_source.tokens;
+    record(Representation.tokens, o -> Recorder.write_collection(o, tokens));
+    ParsedSource parsed_source =
+      measure(Timings.Phase.parse, () -> Parser.parse(lexed_source));
+    if (timings.isPresent()) {
+      count(Timings.Phase.parse, "nodes", parsed_source.node_count());
+    }
+    List<Node.Declaration> declarations = parsed_source.declarations;
+    record(
+      Representation.declarations,
+      o -> Recorder.write_collection(o, declarations));
+    ResolvedSource resolved_source =
+      measure(Timings.Phase.resolve, () -> resolve(parsed_source));
+    count(Timings.Phase.resolve, "globals", resolved_source.globals.size());
+    if (event.shouldCommit()) {
+      event.source = loaded_source.name();
+      event.bytes = contents.getBytes(StandardCharsets.UTF_8).length;
+      event.tokens = lexed_source.token_stream.size();
+      event.commit();
+    }
+    return resolved_source;
+  }
+
+  /** Records the declarations of a parsed source. */
+  private ResolvedSource resolve(ParsedSource parsed_source) {
+    List<Diagnostic> diagnostics = new ArrayList<>(parsed_source.diagnostics);
     Optional<Node.Entrypoint> entrypoint = Optional.empty();
     Map<String, Node.Definition> globals = new HashMap<>();
     for (Node.Declaration node : parsed_source.declarations) {
       switch (node) {
         case Node.Entrypoint e -> {
           if (entrypoint.isPresent()) {
-            throw parsed_source
-              .subject(node)
-              .to_diagnostic("error", "Redeclaration of entrypoint!")
-              .to_exception();
+            diagnostics
+              .add(
+                parsed_source
+                  .subject(node)
+                  .to_diagnostic("error", "Redeclaration of entrypoint!"));
+            continue;
           }
           entrypoint = Optional.of(e);
         }
         case Node.Definition g -> {
           String identifier = g.identifier().text();
           if (globals.containsKey(identifier)) {
-            throw parsed_source
-              .subject(g)
-              .to_diagnostic("error", "Redeclaration of `%s`!", identifier)
-              .to_exception();
+            diagnostics
+              .add(
+                parsed_source
+                  .subject(g)
+                  .to_diagnostic(
+                    "error",
+                    "Redeclaration of `%s`!",
+                    identifier));
+            continue;
           }
           globals.put(identifier, g);
         }
       }
     }
-    return new ResolvedSource(parsed_source, entrypoint, globals);
+    return new ResolvedSource(
+      parsed_source,
+      diagnostics,
+      entrypoint,
+      globals);
+  }
+
+  /** Does the work of a phase, and measures it if there are timings. */
+  private <T> T measure(Timings.Phase phase, Supplier<T> work) {
+    return Timings.measure(timings, phase, loaded_source.name(), work::get);
   }
 
-  /** Records a representation of the source file. Used for debugging the
-   * compiler. */
-  private void record_representation(
-    String source_name,
-    String representation_name,
-    Object representation)
+  /** Records a count of something a phase created if there are timings. */
+  private void count(Timings.Phase phase, String counted, long count) {
+    if (timings.isEmpty()) { return; }
+    timings.get().count(phase, loaded_source.name(), counted, count);
+  }
+
+  /** Records a representation of the source file if there is a recorder.
+   * Used for debugging the compiler. */
+  private void record(
+    Representation representation,
+    Recorder.Writing writing)
   {
-    if (artifacts.isEmpty()) { return; }
-    Path representation_path =
-      artifacts
-        .get()
-        .resolve(
-          "%s.%s%s"
-            .formatted(source_name, representation_name, Source.extension));
-    try {
-      Files.writeString(representation_path, representation.toString());
-    }
-    catch (IOException cause) {
-      throw Subject
-        .of(representation_path)
-        .to_diagnostic(
-          "failure",
-          "Could not record the %s of source `%s`",
-          representation_name,
-          source_name)
-        .to_exception(cause);
-    }
+    if (recorder.isEmpty()) { return; }
+    recorder
+      .get()
+      .record(
+        representation,
+        loaded_source.name(),
+        representation.name(),
+        writing);
   }
 }
@@ -1,2 +1,9 @@
 /** High Level Mindustry Logic compiler. */
-module hlml {}
+module hlml {
+  requires java.management;
+  requires jdk.management;
+  requires jdk.jfr;
+
+  exports hlml.compiler;
+  exports hlml.reporter;
+}